@@ -61,11 +61,28 @@
  */
 package com.github.msarhan.ummalqura.calendar;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-class HijrahChronology implements Serializable {
+/**
+ * The Umm Al-Qura calendar system backed by the table of month lengths in
+ * {@code hijrah-config.properties}.
+ * <p>
+ * Besides the {@code int[]} based helpers used by {@link UmmalquraCalendar}, this class offers a
+ * primitive conversion API that does not allocate: Hijrah dates are exchanged as a single packed
+ * {@code int} (see {@link #pack(int, int, int)}) and Gregorian dates as ISO epoch days.
+ */
+public class HijrahChronology implements Serializable {
 
     /**
      * Serialization version.
@@ -73,55 +90,61 @@ class HijrahChronology implements Serializable {
     private static final long serialVersionUID = 3127340209035924785L;
     /**
      * Singleton instance of the Islamic Umm Al-Qura calendar of Saudi Arabia.
-     * Other Hijrah chronology variants may be available from
+     * Other Hijrah chronology variants may be loaded by {@link #load(InputStream)}.
      */
     public static final HijrahChronology INSTANCE;
     /**
-     * Flag to indicate the initialization of configuration data is complete.
-     *
-     * @see #checkCalendarInit()
+     * The id of {@link #INSTANCE}, as defined by {@code hijrah-config.properties}.
      */
-    private transient volatile boolean initComplete;
+    public static final String DEFAULT_ID = "Hijrah-umalqura";
     /**
-     * Array of epoch days indexed by Hijrah Epoch month.
-     * Computed by {@link #loadCalendarData}.
+     * The value returned by the {@code try} conversions, such as
+     * {@link #tryToEpochDay(int, int, int)}, for invalid or out of range dates. It is neither a
+     * valid packed date nor an epoch day within the supported range.
      */
-    private transient int[] hijrahEpochMonthStartDays;
+    public static final int INVALID_DATE = Integer.MIN_VALUE;
     /**
-     * The minimum epoch day of this Hijrah calendar.
-     * Computed by {@link #loadCalendarData}.
+     * Loaded variants, by id. Holds the most recently loaded version of each id.
      */
-    private transient int minEpochDay;
+    private static final ConcurrentMap<String, HijrahChronology> VARIANTS_BY_ID =
+            new ConcurrentHashMap<>();
     /**
-     * The maximum epoch day for which calendar data is available.
-     * Computed by {@link #loadCalendarData}.
+     * Loaded variants, by id and version.
+     */
+    private static final ConcurrentMap<String, HijrahChronology> VARIANTS_BY_VERSION =
+            new ConcurrentHashMap<>();
+    /**
+     * The id of this variant.
+     *
+     * @serial
      */
-    private transient int maxEpochDay;
+    private final String id;
     /**
-     * The minimum epoch month.
-     * Computed by {@link #loadCalendarData}.
+     * The calendar data, loaded on first use by {@link #loadCalendarData()} and replaced by
+     * {@link #replaceData(InputStream)}.
+     * The data is immutable; a single volatile read publishes all of it safely.
      */
-    private transient int hijrahStartEpochMonth;
+    private transient volatile HijrahData data;
     /**
-     * The minimum length of a month.
-     * Computed by {@link #createEpochMonths}.
+     * Time spent loading the calendar data in nanoseconds.
+     * Written before {@link #data} is published.
      */
-    private transient int minMonthLength;
+    private transient long loadNanos;
     /**
-     * The maximum length of a month.
-     * Computed by {@link #createEpochMonths}.
+     * The number of times the calendar data has been replaced, see {@link #replaceData}.
      */
-    private transient int maxMonthLength;
+    private transient volatile long generation;
     /**
-     * The minimum length of a year in days.
-     * Computed by {@link #createEpochMonths}.
+     * Listeners notified when the calendar data is replaced.
      */
-    private transient int minYearLength;
+    private final transient List<DataListener> listeners = new CopyOnWriteArrayList<>();
+
     /**
-     * The maximum length of a year in days.
-     * Computed by {@link #createEpochMonths}.
+     * Name of the system property selecting the {@link LookupMode}, defaults to {@code BUCKET}.
+     * The property is read once, when the first calendar data is loaded; unknown values fall
+     * back to {@code BUCKET} with a logged warning.
      */
-    private transient int maxYearLength;
+    public static final String PROP_LOOKUP_MODE = "com.github.msarhan.ummalqura.calendar.lookup";
 
     /**
      * Prefix of property names for Hijrah calendar variants.
@@ -134,7 +157,7 @@ class HijrahChronology implements Serializable {
 
     static {
         try {
-            INSTANCE = new HijrahChronology();
+            INSTANCE = new HijrahChronology(DEFAULT_ID, null);
         } catch (Exception ex) {
             throw new RuntimeException("Unable to initialize Hijrah-umalqura calendar", ex.getCause());
         }
@@ -142,44 +165,343 @@ class HijrahChronology implements Serializable {
 
     /**
      * Create a HijrahChronology for the named variant.
-     * The resource and calendar type are retrieved from properties
-     * in the {@code calendars.properties}.
-     * The property names are {@code "calendar.hijrah." + id}
-     * and  {@code "calendar.hijrah." + id + ".type"}
      *
-     * @throws DateTimeException        if the calendar type is missing from the properties file.
-     * @throws IllegalArgumentException if the id is empty
+     * @param id   the id of the variant
+     * @param data the calendar data, or {@code null} to load the default data on first use
+     */
+    private HijrahChronology(String id, HijrahData data) {
+        this.id = id;
+        this.data = data;
+    }
+
+    /**
+     * Returns the variant with the given id: {@link #INSTANCE} for {@link #DEFAULT_ID}, otherwise
+     * the most recently loaded variant with that id, whatever its version.
+     *
+     * @param id the id of the variant
+     * @return the chronology
+     * @throws DateTimeException if no variant with that id has been loaded
+     */
+    public static HijrahChronology of(String id) {
+        if (DEFAULT_ID.equals(id)) {
+            return INSTANCE;
+        }
+        HijrahChronology chronology = VARIANTS_BY_ID.get(id);
+        if (chronology == null) {
+            throw new DateTimeException("Unknown Hijrah calendar variant: " + id);
+        }
+        return chronology;
+    }
+
+    /**
+     * Returns the loaded variant with the given id and version.
+     *
+     * @param id      the id of the variant
+     * @param version the version of the variant data
+     * @return the chronology
+     * @throws DateTimeException if no variant with that id and version has been loaded
+     */
+    public static HijrahChronology of(String id, String version) {
+        if (DEFAULT_ID.equals(id) && version.equals(INSTANCE.getVersion())) {
+            return INSTANCE;
+        }
+        HijrahChronology chronology = VARIANTS_BY_VERSION.get(variantKey(id, version));
+        if (chronology == null) {
+            throw new DateTimeException("Unknown Hijrah calendar variant: " + id
+                    + ", version: " + version);
+        }
+        return chronology;
+    }
+
+    /**
+     * Returns the ids of the default and all loaded variants.
+     *
+     * @return the ids, unmodifiable
+     */
+    public static Set<String> getAvailableIds() {
+        Set<String> ids = new TreeSet<>(VARIANTS_BY_ID.keySet());
+        ids.add(DEFAULT_ID);
+        return Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Loads a calendar variant from a file in the {@code hijrah-config.properties} grammar.
+     *
+     * @param file the variant configuration
+     * @return the chronology, shared with earlier loads of the same id and version
+     * @throws IOException       if reading the file fails
+     * @throws DateTimeException if the configuration is malformed or uses {@link #DEFAULT_ID}
+     * @see #load(InputStream)
+     */
+    public static HijrahChronology load(File file) throws IOException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            return load(is);
+        }
+    }
+
+    /**
+     * Loads a calendar variant in the {@code hijrah-config.properties} grammar: a {@code version},
+     * an {@code id}, the {@code iso-start} date and one line of 12 month lengths per year.
+     * <p>
+     * Variants are cached by id and version: loading a configuration whose id and version were
+     * loaded before returns the existing chronology. The last loaded variant becomes the one
+     * returned by {@link #of(String)} for its id, even if an earlier load had a newer version; use
+     * {@link #of(String, String)} to select a version. The stream is not closed.
+     *
+     * @param is the variant configuration
+     * @return the chronology, shared with earlier loads of the same id and version
+     * @throws IOException       if reading the stream fails
+     * @throws DateTimeException if the configuration is malformed or uses {@link #DEFAULT_ID}
+     */
+    public static HijrahChronology load(InputStream is) throws IOException {
+        HijrahData data = parseVariant(is);
+        if (DEFAULT_ID.equals(data.id)) {
+            throw new DateTimeException("Hijrah calendar id is reserved: " + data.id);
+        }
+
+        String key = variantKey(data.id, data.version);
+        HijrahChronology chronology = VARIANTS_BY_VERSION.get(key);
+        if (chronology == null) {
+            HijrahChronology loaded = new HijrahChronology(data.id, data);
+            chronology = VARIANTS_BY_VERSION.putIfAbsent(key, loaded);
+            if (chronology == null) {
+                chronology = loaded;
+            }
+        }
+        VARIANTS_BY_ID.put(data.id, chronology);
+        return chronology;
+    }
+
+    /**
+     * Parses a variant configuration.
+     *
+     * @param is the variant configuration
+     * @return the calendar data
+     * @throws IOException       if reading the stream fails
+     * @throws DateTimeException if the configuration is malformed or has no id
+     */
+    private static HijrahData parseVariant(InputStream is) throws IOException {
+        HijrahData data;
+        try {
+            data = HijrahData.parse(is);
+        } catch (IllegalArgumentException ex) {
+            throw new DateTimeException("Invalid Hijrah calendar configuration", ex);
+        }
+        if (data.id.isEmpty()) {
+            throw new DateTimeException("Hijrah calendar configuration does not contain an id");
+        }
+        return data;
+    }
+
+    private static String variantKey(String id, String version) {
+        return id + '\n' + version;
+    }
+
+    /**
+     * Resolves a deserialized chronology to the loaded variant with the same id.
+     *
+     * @return the shared chronology
+     * @throws ObjectStreamException if the variant has not been loaded in this JVM
      */
-    private HijrahChronology() throws DateTimeException {
+    private Object readResolve() throws ObjectStreamException {
+        try {
+            return of(id);
+        } catch (DateTimeException ex) {
+            throw new InvalidObjectException(ex.getMessage());
+        }
     }
 
     /**
-     * Check and ensure that the calendar data has been initialized.
-     * The initialization check is performed at the boundary between
-     * public and package methods.  If a public calls another public method
-     * a check is not necessary in the caller.
-     * The constructors of HijrahDate call {@link #getEpochDay} or
-     * {@link #getHijrahDateInfo} so every call from HijrahDate to a
-     * HijrahChronology via package private methods has been checked.
+     * Returns the id of this variant.
      *
+     * @return the id, e.g. {@link #DEFAULT_ID}
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the version of the calendar data of this variant.
+     *
+     * @return the version
+     */
+    public String getVersion() {
+        return data().version;
+    }
+
+    /**
+     * Replaces the calendar data of this chronology with a corrected table read from a file.
+     *
+     * @param file the new configuration, in the {@code hijrah-config.properties} grammar
+     * @throws IOException       if reading the file fails
+     * @throws DateTimeException if the configuration is malformed, its id is not {@link #getId()}
+     *                           or its version is already used by another loaded chronology
+     * @see #replaceData(InputStream)
+     */
+    public void replaceData(File file) throws IOException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            replaceData(is);
+        }
+    }
+
+    /**
+     * Replaces the calendar data of this chronology with a corrected table, e.g. when the
+     * authorities announce a different start of an upcoming month.
+     * <p>
+     * The new table is parsed and indexed before it is published through a single reference, so
+     * conversions in progress complete on the table they started with and conversions never
+     * block. Once the new table is visible the {@linkplain #getGeneration() generation} is
+     * incremented and the {@linkplain #addDataListener listeners} are notified on the calling
+     * thread, in generation order across concurrent replacements. A listener throwing does not
+     * prevent the others from being notified; the new table stays in place and the first failure
+     * is rethrown once all listeners have run, with the later ones suppressed. The stream is not
+     * closed.
+     *
+     * @param is the new configuration, in the {@code hijrah-config.properties} grammar
+     * @throws IOException       if reading the stream fails
+     * @throws DateTimeException if the configuration is malformed, its id is not {@link #getId()}
+     *                           or its version is already used by another loaded chronology
+     */
+    public void replaceData(InputStream is) throws IOException {
+        HijrahData newData = parseVariant(is);
+        if (!id.equals(newData.id)) {
+            throw new DateTimeException("Hijrah calendar id mismatch, expected: " + id
+                    + ", found: " + newData.id);
+        }
+
+        synchronized (this) {
+            HijrahData oldData = data;
+            if (this != INSTANCE) {
+                String newKey = variantKey(id, newData.version);
+                HijrahChronology registered = VARIANTS_BY_VERSION.putIfAbsent(newKey, this);
+                if (registered != null && registered != this) {
+                    throw new DateTimeException("Hijrah calendar variant already loaded: " + id
+                            + ", version: " + newData.version);
+                }
+                if (oldData != null && !oldData.version.equals(newData.version)) {
+                    VARIANTS_BY_VERSION.remove(variantKey(id, oldData.version), this);
+                }
+            }
+            data = newData;
+            long newGeneration = ++generation;
+
+            // notified under the lock so that concurrent replacements reach every
+            // listener in generation order
+            RuntimeException failure = null;
+            for (DataListener listener : listeners) {
+                try {
+                    listener.dataChanged(this, newGeneration);
+                } catch (RuntimeException ex) {
+                    if (failure == null) {
+                        failure = ex;
+                    } else {
+                        failure.addSuppressed(ex);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times the calendar data of this chronology has been replaced.
+     * Caches of converted dates can record it and discard their content when it changes.
+     *
+     * @return the generation, 0 until the data is first replaced
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Registers a listener notified after each replacement of the calendar data.
+     *
+     * @param listener the listener
+     */
+    public void addDataListener(DataListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered by {@link #addDataListener}.
+     *
+     * @param listener the listener
+     */
+    public void removeDataListener(DataListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the calendar data, loading it on first use.
+     * Every public method reads the data once, so it works on a consistent table.
+     *
+     * @return the calendar data
      * @throws DateTimeException if the calendar data configuration is
      *                           malformed or IOExceptions occur loading the data
      */
-    private void checkCalendarInit() {
+    private HijrahData data() {
         // Keep this short so it can be inlined for performance
-        if (!initComplete) {
-            loadCalendarData();
-            initComplete = true;
+        HijrahData d = data;
+        return d != null ? d : loadCalendarData();
+    }
+
+    /**
+     * Returns the current calendar data, for callers that convert many dates against one
+     * consistent table even if the data is replaced meanwhile.
+     *
+     * @return the calendar data
+     */
+    HijrahData snapshot() {
+        return data();
+    }
+
+    /**
+     * Loads the calendar data unless another thread already did.
+     * Blocks only threads that arrive before the data is published.
+     *
+     * @return the calendar data
+     */
+    private synchronized HijrahData loadCalendarData() {
+        HijrahData d = data;
+        if (d == null) {
+            long start = System.nanoTime();
+            try {
+                d = readDefaultData();
+            } catch (Exception ex) {
+                throw new DateTimeException("Unable to initialize HijrahCalendar", ex);
+            }
+            loadNanos = System.nanoTime() - start;
+            data = d;
         }
+        return d;
+    }
+
+    /**
+     * Loads the calendar data now rather than on first use, e.g. to warm up a service before it
+     * takes traffic. Calling it again has no effect.
+     *
+     * @return the time spent loading the calendar data in nanoseconds, or 0 if the data of this
+     * variant was loaded by {@link #load(InputStream)}
+     * @throws DateTimeException if the calendar data configuration is
+     *                           malformed or IOExceptions occur loading the data
+     */
+    public long preload() {
+        data();
+        return loadNanos;
     }
 
     //-----------------------------------------------------------------------
     public boolean isLeapYear(long prolepticYear) {
-        checkCalendarInit();
-        if (prolepticYear < getMinimumYear() || prolepticYear > getMaximumYear()) {
+        HijrahData d = data();
+        if (prolepticYear < d.getMinimumYear() || prolepticYear > d.getMaximumYear()) {
             return false;
         }
-        int len = getYearLength((int) prolepticYear);
+        int len = d.getYearLength((int) prolepticYear);
         return (len > 354);
     }
 
@@ -189,7 +511,8 @@ class HijrahChronology implements Serializable {
      * @param prolepticYear the year to check
      */
     int checkValidYear(long prolepticYear) {
-        if (prolepticYear < getMinimumYear() || prolepticYear > getMaximumYear()) {
+        HijrahData d = data();
+        if (prolepticYear < d.getMinimumYear() || prolepticYear > d.getMaximumYear()) {
             throw new DateTimeException("Invalid Hijrah year: " + prolepticYear);
         }
         return (int) prolepticYear;
@@ -217,22 +540,146 @@ class HijrahChronology implements Serializable {
      * @return int[0] = YEAR, int[1] = MONTH, int[2] = DATE
      */
     int[] getHijrahDateInfo(int epochDay) {
-        checkCalendarInit();    // ensure that the chronology is initialized
-        if (epochDay < minEpochDay || epochDay >= maxEpochDay) {
-            throw new DateTimeException("Hijrah date out of range");
-        }
+        int packed = epochDayToPackedHijri(epochDay);
+        return new int[]{packedYear(packed), packedMonth(packed), packedDay(packed)};
+    }
+
+    /**
+     * Returns the Hijrah date of the given ISO epoch day as a packed {@code int}.
+     * <p>
+     * This method does not allocate; use {@link #packedYear(int)}, {@link #packedMonth(int)} and
+     * {@link #packedDay(int)} to read the fields back.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the packed Hijrah date, month is 0-based
+     * @throws DateTimeException if the epoch day is out of the supported range
+     */
+    public int epochDayToPackedHijri(int epochDay) {
+        return data().epochDayToPackedHijri(epochDay);
+    }
+
+    /**
+     * Returns the ISO epoch day of the given Hijrah date.
+     * <p>
+     * This method does not allocate.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based, e.g. {@link UmmalquraCalendar#MUHARRAM}
+     * @param day   the day of month, 1-based
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the date is invalid or out of the supported range
+     */
+    public int hijriToEpochDay(int year, int month, int day) {
+        return data().getEpochDay(year, month + 1, day);
+    }
+
+    /**
+     * Returns the ISO epoch day of the given Hijrah date, or {@link #INVALID_DATE} if the date
+     * is invalid or out of the supported range.
+     * <p>
+     * Unlike {@link #hijriToEpochDay(int, int, int)} this method neither throws nor allocates,
+     * which matters when many inputs are expected to be invalid. The date is checked against
+     * the month lengths of the year in constant time.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @return the ISO epoch day, or {@link #INVALID_DATE}
+     */
+    public int tryToEpochDay(int year, int month, int day) {
+        return data().findEpochDay(year, month, day);
+    }
+
+    /**
+     * Returns the Hijrah date of the given ISO epoch day as a packed {@code int}, or
+     * {@link #INVALID_DATE} if the epoch day is out of the supported range. Unlike
+     * {@link #epochDayToPackedHijri(int)} this method neither throws nor allocates.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the packed Hijrah date, month is 0-based, or {@link #INVALID_DATE}
+     */
+    public int tryToHijri(int epochDay) {
+        return data().findPackedHijri(epochDay);
+    }
+
+    /**
+     * Returns the Hijrah date of an instant as seen in the given time zone, as a packed
+     * {@code int}, or {@link #INVALID_DATE} if the date is out of the supported range. Unlike
+     * {@link #epochMillisToPackedHijri(long, TimeZone)} this method does not throw.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @return the packed Hijrah date, see {@link #pack(int, int, int)}, or {@link #INVALID_DATE}
+     */
+    public int tryToHijri(long epochMillis, TimeZone zone) {
+        return tryToHijri(toEpochDay(epochMillis, zone));
+    }
+
+    /**
+     * Checks whether a Hijrah date exists in the calendar data of this chronology. This method
+     * neither throws nor allocates.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @return true if the date is valid and within the supported range
+     */
+    public boolean isValid(int year, int month, int day) {
+        return data().findEpochDay(year, month, day) != INVALID_DATE;
+    }
+
+    /**
+     * Returns the ISO epoch day of the given packed Hijrah date.
+     *
+     * @param packedDate a Hijrah date packed by {@link #pack(int, int, int)}
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the date is invalid or out of the supported range
+     */
+    public int packedHijriToEpochDay(int packedDate) {
+        return hijriToEpochDay(packedYear(packedDate), packedMonth(packedDate), packedDay(packedDate));
+    }
 
-        int epochMonth = epochDayToEpochMonth(epochDay);
-        int year = epochMonthToYear(epochMonth);
-        int month = epochMonthToMonth(epochMonth);
-        int day1 = epochMonthToEpochDay(epochMonth);
-        int date = epochDay - day1; // epochDay - dayOfEpoch(year, month);
+    /**
+     * Packs a date into a single {@code int} laid out as {@code year << 16 | month << 8 | day}.
+     * Packed values of valid dates sort in chronological order.
+     *
+     * @param year  the year, 0 to 32767
+     * @param month the month, 0-based
+     * @param day   the day of month, 1-based
+     * @return the packed date
+     */
+    public static int pack(int year, int month, int day) {
+        return (year << 16) | (month << 8) | day;
+    }
 
-        int[] dateInfo = new int[3];
-        dateInfo[0] = year;
-        dateInfo[1] = month; // ms: keep 0-based.
-        dateInfo[2] = date + 1; // change to 1-based.
-        return dateInfo;
+    /**
+     * Returns the year of a packed date.
+     *
+     * @param packedDate a date packed by {@link #pack(int, int, int)}
+     * @return the year
+     */
+    public static int packedYear(int packedDate) {
+        return packedDate >>> 16;
+    }
+
+    /**
+     * Returns the 0-based month of a packed date.
+     *
+     * @param packedDate a date packed by {@link #pack(int, int, int)}
+     * @return the month, 0-based
+     */
+    public static int packedMonth(int packedDate) {
+        return (packedDate >>> 8) & 0xFF;
+    }
+
+    /**
+     * Returns the day of month of a packed date.
+     *
+     * @param packedDate a date packed by {@link #pack(int, int, int)}
+     * @return the day of month, 1-based
+     */
+    public static int packedDay(int packedDate) {
+        return packedDate & 0xFF;
     }
 
     /**
@@ -244,17 +691,7 @@ class HijrahChronology implements Serializable {
      * @return the epoch day
      */
     long getEpochDay(int prolepticYear, int monthOfYear, int dayOfMonth) {
-        checkCalendarInit();    // ensure that the chronology is initialized
-        checkValidMonth(monthOfYear);
-        int epochMonth = yearToEpochMonth(prolepticYear) + (monthOfYear - 1);
-        if (epochMonth < 0 || epochMonth >= hijrahEpochMonthStartDays.length) {
-            throw new DateTimeException("Invalid Hijrah date, year: " +
-                    prolepticYear + ", month: " + monthOfYear);
-        }
-        if (dayOfMonth < 1 || dayOfMonth > getMonthLength(prolepticYear, monthOfYear)) {
-            throw new DateTimeException("Invalid Hijrah day of month: " + dayOfMonth);
-        }
-        return epochMonthToEpochDay(epochMonth) + (dayOfMonth - 1);
+        return data().getEpochDay(prolepticYear, monthOfYear, dayOfMonth);
     }
 
     /**
@@ -265,7 +702,7 @@ class HijrahChronology implements Serializable {
      * @return the day of year, 1-origin
      */
     int getDayOfYear(int prolepticYear, int month) {
-        return yearMonthToDayOfYear(prolepticYear, (month - 1));
+        return data().yearMonthToDayOfYear(prolepticYear, (month - 1));
     }
 
     /**
@@ -276,12 +713,7 @@ class HijrahChronology implements Serializable {
      * @return the length of the month
      */
     int getMonthLength(int prolepticYear, int monthOfYear) {
-        int epochMonth = yearToEpochMonth(prolepticYear) + (monthOfYear - 1);
-        if (epochMonth < 0 || epochMonth >= hijrahEpochMonthStartDays.length) {
-            throw new DateTimeException("Invalid Hijrah date, year: " +
-                    prolepticYear + ", month: " + monthOfYear);
-        }
-        return epochMonthLength(epochMonth);
+        return data().getMonthLength(prolepticYear, monthOfYear);
     }
 
     /**
@@ -292,343 +724,225 @@ class HijrahChronology implements Serializable {
      * @return year length in days
      */
     int getYearLength(int prolepticYear) {
-        return yearMonthToDayOfYear(prolepticYear, 12);
+        return data().getYearLength(prolepticYear);
     }
 
     /**
-     * Return the minimum supported Hijrah year.
+     * Returns the epoch day of the first day of a year.
      *
-     * @return the minimum
+     * @param prolepticYear a proleptic year
+     * @return the epoch day of the first day of the year
      */
-    int getMinimumYear() {
-        return epochMonthToYear(0);
+    int getYearStartEpochDay(int prolepticYear) {
+        return data().getYearStartEpochDay(prolepticYear);
     }
 
     /**
-     * Return the maximum supported Hijrah ear.
+     * Returns the ISO epoch day of the first day of a Hijrah year, read from a precomputed table.
      *
-     * @return the minimum
+     * @param year the Hijrah year
+     * @return the ISO epoch day of 1 Muharram of the year, day 0 is 1970-01-01
+     * @throws DateTimeException if the year is out of the supported range
      */
-    int getMaximumYear() {
-        return epochMonthToYear(hijrahEpochMonthStartDays.length - 1) - 1;
+    public int firstEpochDayOfYear(int year) {
+        return data().getYearStartEpochDay(year);
     }
 
     /**
-     * Returns maximum day-of-month.
+     * Returns the length of a Hijrah year, read from a precomputed table.
      *
-     * @return maximum day-of-month
+     * @param year the Hijrah year
+     * @return 355 if the year is leap, 354 otherwise
+     * @throws DateTimeException if the year is out of the supported range
      */
-    int getMaximumMonthLength() {
-        return maxMonthLength;
+    public int lengthOfYear(int year) {
+        return data().getYearLength(year);
     }
 
     /**
-     * Returns smallest maximum day-of-month.
+     * Returns the length of a Hijrah month, read from a precomputed table.
      *
-     * @return smallest maximum day-of-month
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @return 29 or 30
+     * @throws DateTimeException if the month is out of the supported range
      */
-    int getMinimumMonthLength() {
-        return minMonthLength;
+    public int lengthOfMonth(int year, int month) {
+        checkValidMonth(month + 1);
+        return packedMonthLength(data().getMonthLengths(year), month);
     }
 
     /**
-     * Returns maximum day-of-year.
+     * Returns the lengths of the twelve months of a Hijrah year as a single value: bit {@code m}
+     * is set when month {@code m} (0-based) has 30 days, and clear when it has 29. Use
+     * {@link #packedMonthLength(int, int)} on the returned value to read a month length.
      *
-     * @return maximum day-of-year
+     * @param year the Hijrah year
+     * @return the packed month lengths
+     * @throws DateTimeException if the year is out of the supported range
      */
-    int getMaximumDayOfYear() {
-        return maxYearLength;
+    public int monthLengths(int year) {
+        return data().getMonthLengths(year);
     }
 
     /**
-     * Returns smallest maximum day-of-year.
+     * Returns the length of a month from month lengths packed by {@link #monthLengths(int)}.
      *
-     * @return smallest maximum day-of-year
+     * @param monthLengths the packed month lengths of a year
+     * @param month        the Hijrah month, 0-based
+     * @return 29 or 30
      */
-    int getSmallestMaximumDayOfYear() {
-        return minYearLength;
+    public static int packedMonthLength(int monthLengths, int month) {
+        return 29 + ((monthLengths >>> month) & 1);
     }
 
     /**
-     * Returns the epochMonth found by locating the epochDay in the table. The
-     * epochMonth is the index in the table
+     * Return the minimum supported Hijrah year.
      *
-     * @param epochDay epochDay
-     * @return The index of the element of the start of the month containing the
-     * epochDay.
+     * @return the minimum
      */
-    private int epochDayToEpochMonth(int epochDay) {
-        // binary search
-        int ndx = Arrays.binarySearch(hijrahEpochMonthStartDays, epochDay);
-        if (ndx < 0) {
-            ndx = -ndx - 2;
-        }
-        return ndx;
+    int getMinimumYear() {
+        return data().getMinimumYear();
     }
 
     /**
-     * Returns the year computed from the epochMonth
+     * Return the maximum supported Hijrah ear.
      *
-     * @param epochMonth the epochMonth
-     * @return the Hijrah Year
+     * @return the minimum
      */
-    private int epochMonthToYear(int epochMonth) {
-        return (epochMonth + hijrahStartEpochMonth) / 12;
+    int getMaximumYear() {
+        return data().getMaximumYear();
     }
 
     /**
-     * Returns the epochMonth for the Hijrah Year.
+     * Returns maximum day-of-month.
      *
-     * @param year the HijrahYear
-     * @return the epochMonth for the beginning of the year.
+     * @return maximum day-of-month
      */
-    private int yearToEpochMonth(int year) {
-        return (year * 12) - hijrahStartEpochMonth;
+    int getMaximumMonthLength() {
+        return data().maxMonthLength;
     }
 
     /**
-     * Returns the Hijrah month from the epochMonth.
+     * Returns smallest maximum day-of-month.
      *
-     * @param epochMonth the epochMonth
-     * @return the month of the Hijrah Year
+     * @return smallest maximum day-of-month
      */
-    private int epochMonthToMonth(int epochMonth) {
-        return (epochMonth + hijrahStartEpochMonth) % 12;
+    int getMinimumMonthLength() {
+        return data().minMonthLength;
     }
 
     /**
-     * Returns the epochDay for the start of the epochMonth.
+     * Returns maximum day-of-year.
      *
-     * @param epochMonth the epochMonth
-     * @return the epochDay for the start of the epochMonth.
+     * @return maximum day-of-year
      */
-    private int epochMonthToEpochDay(int epochMonth) {
-        return hijrahEpochMonthStartDays[epochMonth];
-
+    int getMaximumDayOfYear() {
+        return data().maxYearLength;
     }
 
     /**
-     * Returns the day of year for the requested HijrahYear and month.
+     * Returns smallest maximum day-of-year.
      *
-     * @param prolepticYear the Hijrah year
-     * @param month         the Hijrah month
-     * @return the day of year for the start of the month of the year
+     * @return smallest maximum day-of-year
      */
-    private int yearMonthToDayOfYear(int prolepticYear, int month) {
-        int epochMonthFirst = yearToEpochMonth(prolepticYear);
-        return epochMonthToEpochDay(epochMonthFirst + month)
-                - epochMonthToEpochDay(epochMonthFirst);
+    int getSmallestMaximumDayOfYear() {
+        return data().minYearLength;
     }
 
     /**
-     * Returns the length of the epochMonth. It is computed from the start of
-     * the following month minus the start of the requested month.
+     * Returns the strategy used to locate the month of an epoch day.
      *
-     * @param epochMonth the epochMonth; assumed to be within range
-     * @return the length in days of the epochMonth
+     * @return the lookup mode
      */
-    private int epochMonthLength(int epochMonth) {
-        // The very last entry in the epochMonth table is not the start of a month
-        return hijrahEpochMonthStartDays[epochMonth + 1]
-                - hijrahEpochMonthStartDays[epochMonth];
+    public LookupMode getLookupMode() {
+        return data().lookupMode;
     }
 
-    private static final String KEY_ID = "id";
-    private static final String KEY_TYPE = "type";
-    private static final String KEY_VERSION = "version";
-    private static final String KEY_ISO_START = "iso-start";
-
     /**
-     * Return the configuration properties from the resource.
-     * <p>
-     * The default location of the variant configuration resource is:
-     * <pre>
-     *   "$java.home/lib/" + resource-name
-     * </pre>
-     *
-     * @return a Properties containing the properties read from the resource.
-     * @throws Exception if access to the property resource fails
-     */
-    private static Properties readConfigProperties() throws Exception {
-        Properties props = new Properties();
-        try (InputStream is = HijrahChronology.class.getResourceAsStream("/com/github/msarhan/ummalqura/calendar/hijrah-config.properties")) {
-            props.load(is);
-        }
-        return props;
+     * Returns the approximate memory used by the epoch day lookup structure, in bytes.
+     * This is {@code 0} for {@link LookupMode#BINARY_SEARCH}.
+     *
+     * @return the size of the lookup structure in bytes
+     */
+    public long getLookupTableSize() {
+        char[] index = data().epochMonthIndex;
+        return index == null ? 0 : 2L * index.length;
     }
 
     /**
-     * Loads and processes the Hijrah calendar properties file for this calendarType.
-     * The starting Hijrah date and the corresponding ISO date are
-     * extracted and used to calculate the epochDate offset.
-     * The version number is identified and ignored.
-     * Everything else is the data for a year with containing the length of each
-     * of 12 months.
-     *
-     * @throws DateTimeException if initialization of the calendar data from the
-     *                           resource fails
+     * Name of the compiled calendar data resource generated at build time from
+     * {@link #CONFIG_RESOURCE} by {@link HijrahDataCompiler}.
      */
-    private void loadCalendarData() {
-        try {
-            Properties props = readConfigProperties();
-
-            Map<Integer, int[]> years = new HashMap<>();
-            int minYear = Integer.MAX_VALUE;
-            int maxYear = Integer.MIN_VALUE;
-            String version = null;
-            int isoStart = 0;
-            for (Map.Entry<Object, Object> entry : props.entrySet()) {
-                String key = (String) entry.getKey();
-                switch (key) {
-                    case KEY_VERSION:
-                        version = (String) entry.getValue();
-                        break;
-                    case KEY_ISO_START: {
-                        int[] ymd = parseYMD((String) entry.getValue());
-                        isoStart = (int) toIsoEpochDay(ymd[0], ymd[1], ymd[2]);
-                        break;
-                    }
-                    case KEY_TYPE:
-                    case KEY_ID:
-                        break;
-                    default:
-                        try {
-                            // Everything else is either a year or invalid
-                            int year = Integer.parseInt(key);
-                            int[] months = parseMonths((String) entry.getValue());
-                            years.put(year, months);
-                            maxYear = Math.max(maxYear, year);
-                            minYear = Math.min(minYear, year);
-                        } catch (NumberFormatException nfe) {
-                            throw new IllegalArgumentException("bad key: " + key);
-                        }
-                }
-            }
-
-            if (version == null || version.isEmpty()) {
-                throw new IllegalArgumentException("Configuration does not contain a version");
-            }
-            if (isoStart == 0) {
-                throw new IllegalArgumentException("Configuration does not contain a ISO start date");
-            }
-
-            // Now create and validate the array of epochDays indexed by epochMonth
-            hijrahStartEpochMonth = minYear * 12;
-            minEpochDay = isoStart;
-            hijrahEpochMonthStartDays = createEpochMonths(minEpochDay, minYear, maxYear, years);
-            maxEpochDay = hijrahEpochMonthStartDays[hijrahEpochMonthStartDays.length - 1];
-
-            // Compute the min and max year length in days.
-            for (int year = minYear; year < maxYear; year++) {
-                int length = getYearLength(year);
-                minYearLength = Math.min(minYearLength, length);
-                maxYearLength = Math.max(maxYearLength, length);
-            }
-        } catch (Exception ex) {
-            throw new DateTimeException("Unable to initialize HijrahCalendar", ex);
-        }
-    }
+    static final String DATA_RESOURCE = "/com/github/msarhan/ummalqura/calendar/hijrah-config.dat";
+    /**
+     * Name of the calendar configuration resource, the source of truth for the calendar data.
+     */
+    static final String CONFIG_RESOURCE = "/com/github/msarhan/ummalqura/calendar/hijrah-config.properties";
 
     /**
-     * Converts the map of year to month lengths ranging from minYear to maxYear
-     * into a linear contiguous array of epochDays. The index is the hijrahMonth
-     * computed from year and month and offset by minYear. The value of each
-     * entry is the epochDay corresponding to the first day of the month.
+     * Reads the default calendar data. The compiled resource is preferred; the configuration
+     * properties are parsed only if it is missing, e.g. when running from sources.
      *
-     * @param minYear The minimum year for which data is provided
-     * @param maxYear The maximum year for which data is provided
-     * @param years   a Map of year to the array of 12 month lengths
-     * @return array of epochDays for each month from min to max
+     * @return the calendar data
+     * @throws Exception if access to the resources fails
      */
-    private int[] createEpochMonths(int epochDay, int minYear, int maxYear, Map<Integer, int[]> years) {
-        // Compute the size for the array of dates
-        int numMonths = (maxYear - minYear + 1) * 12 + 1;
-
-        // Initialize the running epochDay as the corresponding ISO Epoch day
-        int epochMonth = 0; // index into array of epochMonths
-        int[] epochMonths = new int[numMonths];
-        minMonthLength = Integer.MAX_VALUE;
-        maxMonthLength = Integer.MIN_VALUE;
-
-        // Only whole years are valid, any zero's in the array are illegal
-        for (int year = minYear; year <= maxYear; year++) {
-            int[] months = years.get(year);// must not be gaps
-            for (int month = 0; month < 12; month++) {
-                int length = months[month];
-                epochMonths[epochMonth++] = epochDay;
-
-                if (length < 29 || length > 32) {
-                    throw new IllegalArgumentException("Invalid month length in year: " + minYear);
-                }
-                epochDay += length;
-                minMonthLength = Math.min(minMonthLength, length);
-                maxMonthLength = Math.max(maxMonthLength, length);
+    private static HijrahData readDefaultData() throws Exception {
+        try (InputStream is = HijrahChronology.class.getResourceAsStream(DATA_RESOURCE)) {
+            if (is != null) {
+                return HijrahData.readFrom(new BufferedInputStream(is));
             }
         }
-
-        // Insert the final epochDay
-        epochMonths[epochMonth++] = epochDay;
-
-        if (epochMonth != epochMonths.length) {
-            throw new IllegalStateException("Did not fill epochMonths exactly: ndx = " + epochMonth
-                    + " should be " + epochMonths.length);
+        try (InputStream is = HijrahChronology.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            return HijrahData.parse(is);
         }
-
-        return epochMonths;
     }
 
+    // -------------------------
+    private static final int DAYS_PER_CYCLE = 146097;
+    static final long DAYS_0000_TO_1970 = (DAYS_PER_CYCLE * 5L) - (30L * 365L + 7L);
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /**
+     * The range of epoch days {@link #epochDayToPackedIso(long)} accepts, from 0000-01-01 to
+     * 32767-12-31, the years {@link #pack(int, int, int)} can hold.
+     */
+    private static final long MIN_PACKED_ISO_EPOCH_DAY = toIsoEpochDay(0, 1, 1);
+    private static final long MAX_PACKED_ISO_EPOCH_DAY = toIsoEpochDay(32767, 12, 31);
+
     /**
-     * Parses the 12 months lengths from a property value for a specific year.
+     * Returns the ISO date of an epoch day as a {@link java.util.Date} at midnight in the default
+     * time zone. Prefer {@link #epochDayToPackedIso(long)} which does not allocate.
      *
-     * @param line the value of a year property
-     * @return an array of int[12] containing the 12 month lengths
-     * @throws IllegalArgumentException if the number of months is not 12
-     * @throws NumberFormatException    if the 12 tokens are not numbers
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the date
      */
-    private int[] parseMonths(String line) {
-        int[] months = new int[12];
-        String[] numbers = line.split("\\s");
-        if (numbers.length != 12) {
-            throw new IllegalArgumentException("wrong number of months on line: " + Arrays.toString(numbers) + "; count: " + numbers.length);
-        }
-        for (int i = 0; i < 12; i++) {
-            try {
-                months[i] = Integer.parseInt(numbers[i]);
-            } catch (NumberFormatException nfe) {
-                throw new IllegalArgumentException("bad key: " + numbers[i]);
-            }
+    public static Date fromIsoEpochDay(long epochDay) {
+        // The ISO calendar repeats every 400 years, decode the day within 1970 to 2369
+        long cycles = epochDay / DAYS_PER_CYCLE;
+        if (epochDay % DAYS_PER_CYCLE < 0) {
+            cycles--;
         }
-        return months;
+        int packed = epochDayToPackedIso(epochDay - cycles * DAYS_PER_CYCLE);
+        long year = packedYear(packed) + cycles * 400;
+        int month = packedMonth(packed);
+        int day = packedDay(packed);
+        return new GregorianCalendar((int) year, month, day).getTime();
     }
 
     /**
-     * Parse yyyy-MM-dd into a 3 element array [yyyy, mm, dd].
+     * Returns the ISO date of an epoch day as a packed {@code int}, see
+     * {@link #pack(int, int, int)}. The month is 0-based as in {@link Calendar#MONTH}.
+     * This method does not allocate.
      *
-     * @param string the input string
-     * @return the 3 element array with year, month, day
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01, from -719528 (0000-01-01) to
+     *                 11248737 (32767-12-31)
+     * @return the packed ISO date
+     * @throws DateTimeException if the epoch day is out of range
      */
-    private int[] parseYMD(String string) {
-        // yyyy-MM-dd
-        string = string.trim();
-        try {
-            if (string.charAt(4) != '-' || string.charAt(7) != '-') {
-                throw new IllegalArgumentException("date must be yyyy-MM-dd");
-            }
-            int[] ymd = new int[3];
-            ymd[0] = Integer.parseInt(string.substring(0, 4));
-            ymd[1] = Integer.parseInt(string.substring(5, 7));
-            ymd[2] = Integer.parseInt(string.substring(8, 10));
-            return ymd;
-        } catch (NumberFormatException ex) {
-            throw new IllegalArgumentException("date must be yyyy-MM-dd", ex);
+    public static int epochDayToPackedIso(long epochDay) {
+        if (epochDay < MIN_PACKED_ISO_EPOCH_DAY || epochDay > MAX_PACKED_ISO_EPOCH_DAY) {
+            throw new DateTimeException("ISO epoch day out of range: " + epochDay);
         }
-    }
-
-    // -------------------------
-    private static final int DAYS_PER_CYCLE = 146097;
-    static final long DAYS_0000_TO_1970 = (DAYS_PER_CYCLE * 5L) - (30L * 365L + 7L);
-
-    public static Date fromIsoEpochDay(long epochDay) {
         long zeroDay = epochDay + DAYS_0000_TO_1970;
         // find the march-based year
         zeroDay -= 60;  // adjust to 0000-03-01 so leap day is at end of four year cycle
@@ -655,10 +969,18 @@ class HijrahChronology implements Serializable {
         int dom = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
         yearEst += marchMonth0 / 10;
 
-        return new GregorianCalendar((int) yearEst, month - 1, dom).getTime();
+        return pack((int) yearEst, month - 1, dom);
     }
 
-    public long toIsoEpochDay(int year, int month, int day) {
+    /**
+     * Returns the ISO epoch day of a proleptic ISO date.
+     *
+     * @param year  the proleptic ISO year
+     * @param month the ISO month, 1-based
+     * @param day   the day of month, 1-based
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     */
+    static long toIsoEpochDay(int year, int month, int day) {
         long y = year;
         long m = month;
         long total = 0;
@@ -679,33 +1001,117 @@ class HijrahChronology implements Serializable {
         return total - DAYS_0000_TO_1970;
     }
 
-    public boolean isIsoLeapYear(long prolepticYear) {
+    /**
+     * Checks whether a proleptic ISO year is a leap year.
+     *
+     * @param prolepticYear the proleptic ISO year
+     * @return true if the year has 366 days
+     */
+    static boolean isIsoLeapYear(long prolepticYear) {
         return ((prolepticYear & 3) == 0) && ((prolepticYear % 100) != 0 || (prolepticYear % 400) == 0);
     }
 
+    /**
+     * Returns the ISO epoch day of an instant as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     */
+    public static int toEpochDay(long epochMillis, TimeZone zone) {
+        long localMillis = epochMillis + zone.getOffset(epochMillis);
+        long epochDay = localMillis / MILLIS_PER_DAY;
+        if (localMillis % MILLIS_PER_DAY < 0) {
+            epochDay--; // floor for instants before 1970
+        }
+        return (int) epochDay;
+    }
+
+    /**
+     * Returns the Hijrah date of an instant as seen in the given time zone, as a packed
+     * {@code int}. This method does not allocate.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @return the packed Hijrah date, see {@link #pack(int, int, int)}
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public int epochMillisToPackedHijri(long epochMillis, TimeZone zone) {
+        return epochDayToPackedHijri(toEpochDay(epochMillis, zone));
+    }
+
+    /**
+     * Returns an array containing the Hijrah year, month and day of an instant
+     * as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @return int[0] = YEAR, int[1] = MONTH, int[2] = DATE
+     */
+    int[] getHijrahDateInfo(long epochMillis, TimeZone zone) {
+        return getHijrahDateInfo(toEpochDay(epochMillis, zone));
+    }
+
+    /**
+     * Returns an array containing the Gregorian year, month and day of a Hijrah date.
+     *
+     * @param hYear  the Hijrah year
+     * @param hMonth the Hijrah month, 0-based
+     * @param hDay   the Hijrah day of month
+     * @return int[0] = YEAR, int[1] = MONTH, 0-based, int[2] = DATE
+     */
+    int[] getGregorianDateInfo(int hYear, int hMonth, int hDay) {
+        int packed = epochDayToPackedIso(hijriToEpochDay(hYear, hMonth, hDay));
+        return new int[]{packedYear(packed), packedMonth(packed), packedDay(packed)};
+    }
+
+    static int[] toHijri(long epochMillis, TimeZone zone) {
+        return INSTANCE.getHijrahDateInfo(epochMillis, zone);
+    }
+
     static int[] toHijri(Date date) {
-        final Calendar calendar = GregorianCalendar.getInstance();
-        calendar.setTime(date);
-        return INSTANCE.getHijrahDateInfo((int) INSTANCE.toIsoEpochDay(
-                calendar.get(Calendar.YEAR),
-                calendar.get(Calendar.MONTH) + 1,
-                calendar.get(Calendar.DAY_OF_MONTH)
-        ));
+        return toHijri(date.getTime(), TimeZone.getDefault());
     }
 
     static int[] toGregorian(int hYear, int hMonth, int hDay) {
-        final Date date = HijrahChronology.fromIsoEpochDay(INSTANCE.getEpochDay(hYear, hMonth + 1, hDay));
-        final Calendar calendar = GregorianCalendar.getInstance();
-        calendar.setTime(date);
-        return new int[]{
-                calendar.get(Calendar.YEAR),
-                calendar.get(Calendar.MONTH),
-                calendar.get(Calendar.DAY_OF_MONTH)
-        };
-    }
-
-    static int getDaysInMonth(int year, int month) {
-        return INSTANCE.getMonthLength(year, month);
+        return INSTANCE.getGregorianDateInfo(hYear, hMonth, hDay);
+    }
+
+    /**
+     * Receives notifications when the calendar data of a chronology is replaced.
+     */
+    public interface DataListener {
+
+        /**
+         * Called after new calendar data has been published. Calls for one chronology are
+         * serialized and arrive in increasing generation order; the listener should return
+         * quickly and must not replace the data of the chronology itself.
+         *
+         * @param chronology the chronology whose data was replaced
+         * @param generation the new generation of the chronology
+         */
+        void dataChanged(HijrahChronology chronology, long generation);
+    }
+
+    /**
+     * Strategies to locate the Hijrah month containing an epoch day.
+     * The mode is selected when the calendar data is loaded, from the
+     * {@value #PROP_LOOKUP_MODE} system property.
+     */
+    public enum LookupMode {
+        /**
+         * Binary search over the month start table; no additional memory.
+         */
+        BINARY_SEARCH,
+        /**
+         * A table of one entry per 16 days followed by a single fix-up step;
+         * about 13 KB for the default data.
+         */
+        BUCKET,
+        /**
+         * A table of one entry per day; about 210 KB for the default data.
+         */
+        DENSE
     }
 
 }
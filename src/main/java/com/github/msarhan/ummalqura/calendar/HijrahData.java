@@ -0,0 +1,823 @@
+/*
+ * Copyright (c) 2012, 2015, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+/*
+ * Copyright (c) 2012, Stephen Colebourne & Michael Nascimento Santos
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ *  * Neither the name of JSR-310 nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR
+ * CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+/*
+ * Modified by Mouaffak A. Sarhan
+ * Extracted from HijrahChronology.
+ */
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The table of a Hijrah calendar variant: the epoch day of the start of every month, derived
+ * from the month lengths of a calendar configuration.
+ * <p>
+ * The data is read either from the properties grammar of {@code hijrah-config.properties} or
+ * from the compact binary form written by {@link #writeTo(OutputStream)}, which holds the final
+ * table and is generated at build time by {@link HijrahDataCompiler}.
+ */
+final class HijrahData {
+
+    private static final String KEY_ID = "id";
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_ISO_START = "iso-start";
+
+    /**
+     * Marks the start of the binary form, "HJRD".
+     */
+    private static final int MAGIC = 0x484A5244;
+    /**
+     * Version of the binary form.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The id of the variant, may be empty.
+     */
+    final String id;
+    /**
+     * The version of the variant data.
+     */
+    final String version;
+    /**
+     * The minimum epoch month, that is the first year times 12.
+     */
+    final int hijrahStartEpochMonth;
+    /**
+     * Array of epoch days indexed by Hijrah Epoch month. The last entry is the day after the
+     * last month.
+     */
+    final int[] epochMonthStartDays;
+    /**
+     * Array of epoch days of the first day of each year, indexed by the year minus the minimum
+     * year. The last entry is the day after the last year; the length of a year is the
+     * difference between consecutive entries. Derived from {@link #epochMonthStartDays}.
+     */
+    final int[] yearStartDays;
+    /**
+     * The month lengths of each year, indexed like {@link #yearStartDays}: bit {@code m} is set
+     * when month {@code m} (0-based) has 30 days rather than 29.
+     */
+    final char[] yearMonthLengths;
+    final int minMonthLength;
+    final int maxMonthLength;
+    final int minYearLength;
+    final int maxYearLength;
+    /**
+     * The minimum epoch day of this Hijrah calendar.
+     */
+    final int minEpochDay;
+    /**
+     * The epoch day following the last day for which calendar data is available.
+     */
+    final int maxEpochDay;
+    /**
+     * The strategy used to locate the epoch month of an epoch day, selected from
+     * {@link HijrahChronology#PROP_LOOKUP_MODE}.
+     */
+    final HijrahChronology.LookupMode lookupMode;
+    /**
+     * Epoch months indexed by {@code (epochDay - minEpochDay) >> epochMonthIndexShift},
+     * or {@code null} when {@link HijrahChronology.LookupMode#BINARY_SEARCH} is used.
+     */
+    final char[] epochMonthIndex;
+    /**
+     * The number of days covered by one entry of {@link #epochMonthIndex}, as a power of two.
+     */
+    private final int epochMonthIndexShift;
+
+    /**
+     * Days covered by one bucket of {@link HijrahChronology.LookupMode#BUCKET} as a power of
+     * two. A bucket must be shorter than the shortest month so that it spans at most one month
+     * boundary.
+     */
+    private static final int BUCKET_SHIFT = 4;
+
+    /**
+     * The lookup mode of all tables, read once from {@link HijrahChronology#PROP_LOOKUP_MODE}.
+     */
+    private static final HijrahChronology.LookupMode LOOKUP_MODE =
+            parseLookupMode(System.getProperty(HijrahChronology.PROP_LOOKUP_MODE));
+
+    private HijrahData(String id, String version, int hijrahStartEpochMonth,
+                       int[] epochMonthStartDays, int minMonthLength, int maxMonthLength,
+                       int minYearLength, int maxYearLength) {
+        this.id = id;
+        this.version = version;
+        this.hijrahStartEpochMonth = hijrahStartEpochMonth;
+        this.epochMonthStartDays = epochMonthStartDays;
+        this.yearStartDays = createYearStartDays(epochMonthStartDays);
+        this.yearMonthLengths = createYearMonthLengths(epochMonthStartDays);
+        this.minMonthLength = minMonthLength;
+        this.maxMonthLength = maxMonthLength;
+        this.minYearLength = minYearLength;
+        this.maxYearLength = maxYearLength;
+        this.minEpochDay = epochMonthStartDays[0];
+        this.maxEpochDay = epochMonthStartDays[epochMonthStartDays.length - 1];
+
+        lookupMode = LOOKUP_MODE;
+        switch (lookupMode) {
+            case DENSE:
+                epochMonthIndexShift = 0;
+                epochMonthIndex = createEpochMonthIndex(epochMonthStartDays, 0);
+                break;
+            case BUCKET:
+                epochMonthIndexShift = BUCKET_SHIFT;
+                epochMonthIndex = createEpochMonthIndex(epochMonthStartDays, BUCKET_SHIFT);
+                break;
+            default:
+                epochMonthIndexShift = 0;
+                epochMonthIndex = null;
+        }
+    }
+
+    /**
+     * Returns the lookup mode named by a property value, or
+     * {@link HijrahChronology.LookupMode#BUCKET} if the value is absent or unknown, so that a
+     * misspelled property cannot prevent the calendar data from loading.
+     *
+     * @param value the property value, may be {@code null}
+     * @return the lookup mode
+     */
+    static HijrahChronology.LookupMode parseLookupMode(String value) {
+        if (value == null) {
+            return HijrahChronology.LookupMode.BUCKET;
+        }
+        try {
+            return HijrahChronology.LookupMode.valueOf(value.trim());
+        } catch (IllegalArgumentException e) {
+            Logger.getLogger(HijrahData.class.getName()).log(Level.WARNING,
+                    "Unknown value of " + HijrahChronology.PROP_LOOKUP_MODE + ": " + value
+                            + ", using " + HijrahChronology.LookupMode.BUCKET);
+            return HijrahChronology.LookupMode.BUCKET;
+        }
+    }
+
+    /**
+     * Processes Hijrah calendar properties.
+     * The starting Hijrah date and the corresponding ISO date are
+     * extracted and used to calculate the epochDate offset.
+     * Everything else is the data for a year with containing the length of each
+     * of 12 months.
+     *
+     * @param props the calendar properties
+     * @return the calendar data
+     * @throws IllegalArgumentException if the properties are malformed
+     */
+    static HijrahData parse(Properties props) {
+        Map<Integer, int[]> years = new HashMap<>();
+        int minYear = Integer.MAX_VALUE;
+        int maxYear = Integer.MIN_VALUE;
+        String id = "";
+        String version = null;
+        int isoStart = 0;
+        for (Map.Entry<Object, Object> entry : props.entrySet()) {
+            String key = (String) entry.getKey();
+            switch (key) {
+                case KEY_VERSION:
+                    version = (String) entry.getValue();
+                    break;
+                case KEY_ISO_START: {
+                    int[] ymd = parseYMD((String) entry.getValue());
+                    isoStart = (int) HijrahChronology.toIsoEpochDay(ymd[0], ymd[1], ymd[2]);
+                    break;
+                }
+                case KEY_ID:
+                    id = (String) entry.getValue();
+                    break;
+                case KEY_TYPE:
+                    break;
+                default:
+                    try {
+                        // Everything else is either a year or invalid
+                        int year = Integer.parseInt(key);
+                        int[] months = parseMonths((String) entry.getValue());
+                        for (int length : months) {
+                            checkMonthLength(year, length);
+                        }
+                        years.put(year, months);
+                        maxYear = Math.max(maxYear, year);
+                        minYear = Math.min(minYear, year);
+                    } catch (NumberFormatException nfe) {
+                        throw new IllegalArgumentException("bad key: " + key);
+                    }
+            }
+        }
+
+        if (version == null || version.isEmpty()) {
+            throw new IllegalArgumentException("Configuration does not contain a version");
+        }
+        if (isoStart == 0) {
+            throw new IllegalArgumentException("Configuration does not contain a ISO start date");
+        }
+        if (years.isEmpty()) {
+            throw new IllegalArgumentException("Configuration does not contain any year");
+        }
+
+        // Now create and validate the array of epochDays indexed by epochMonth
+        int[] epochMonths = createEpochMonths(isoStart, minYear, maxYear, years);
+
+        // Compute the min and max month and year length in days.
+        int minMonthLength = Integer.MAX_VALUE;
+        int maxMonthLength = Integer.MIN_VALUE;
+        for (int epochMonth = 0; epochMonth < epochMonths.length - 1; epochMonth++) {
+            int length = epochMonths[epochMonth + 1] - epochMonths[epochMonth];
+            minMonthLength = Math.min(minMonthLength, length);
+            maxMonthLength = Math.max(maxMonthLength, length);
+        }
+        int minYearLength = Integer.MAX_VALUE;
+        int maxYearLength = Integer.MIN_VALUE;
+        for (int epochMonth = 0; epochMonth < epochMonths.length - 1; epochMonth += 12) {
+            int length = epochMonths[epochMonth + 12] - epochMonths[epochMonth];
+            minYearLength = Math.min(minYearLength, length);
+            maxYearLength = Math.max(maxYearLength, length);
+        }
+
+        return new HijrahData(id, version, minYear * 12, epochMonths,
+                minMonthLength, maxMonthLength, minYearLength, maxYearLength);
+    }
+
+    /**
+     * Reads and processes Hijrah calendar properties.
+     *
+     * @param is the stream of the properties
+     * @return the calendar data
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if the properties are malformed
+     */
+    static HijrahData parse(InputStream is) throws IOException {
+        Properties props = new Properties();
+        props.load(is);
+        return parse(props);
+    }
+
+    /**
+     * Reads calendar data written by {@link #writeTo(OutputStream)}.
+     *
+     * @param is the stream of the binary form
+     * @return the calendar data
+     * @throws IOException              if reading the stream fails
+     * @throws IllegalArgumentException if the stream does not hold calendar data
+     */
+    static HijrahData readFrom(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a Hijrah calendar data stream");
+        }
+        int format = in.readUnsignedShort();
+        if (format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported Hijrah calendar data format: " + format);
+        }
+        String id = in.readUTF();
+        String version = in.readUTF();
+        int hijrahStartEpochMonth = in.readInt();
+        int minMonthLength = in.readInt();
+        int maxMonthLength = in.readInt();
+        int minYearLength = in.readInt();
+        int maxYearLength = in.readInt();
+        int[] epochMonths = new int[in.readInt()];
+        for (int i = 0; i < epochMonths.length; i++) {
+            epochMonths[i] = in.readInt();
+            if (i > 0) {
+                checkMonthLength((hijrahStartEpochMonth + i - 1) / 12, epochMonths[i] - epochMonths[i - 1]);
+            }
+        }
+        return new HijrahData(id, version, hijrahStartEpochMonth, epochMonths,
+                minMonthLength, maxMonthLength, minYearLength, maxYearLength);
+    }
+
+    /**
+     * Writes this calendar data in a compact binary form.
+     *
+     * @param os the stream to write to
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeUTF(id);
+        out.writeUTF(version);
+        out.writeInt(hijrahStartEpochMonth);
+        out.writeInt(minMonthLength);
+        out.writeInt(maxMonthLength);
+        out.writeInt(minYearLength);
+        out.writeInt(maxYearLength);
+        out.writeInt(epochMonthStartDays.length);
+        for (int epochDay : epochMonthStartDays) {
+            out.writeInt(epochDay);
+        }
+        out.flush();
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Returns the packed Hijrah date computed from the epoch day.
+     *
+     * @param epochDay the EpochDay
+     * @return the packed date, see {@link HijrahChronology#pack(int, int, int)}
+     * @throws DateTimeException if the epoch day is out of range
+     */
+    int epochDayToPackedHijri(int epochDay) {
+        if (epochDay < minEpochDay || epochDay >= maxEpochDay) {
+            throw new DateTimeException("Hijrah date out of range");
+        }
+        return toPackedHijri(epochDay);
+    }
+
+    /**
+     * Returns the packed Hijrah date computed from the epoch day, or {@link Integer#MIN_VALUE}
+     * if the epoch day is out of range. Unlike {@link #epochDayToPackedHijri(int)} this method
+     * never throws.
+     *
+     * @param epochDay the EpochDay
+     * @return the packed date, see {@link HijrahChronology#pack(int, int, int)}, or
+     * {@link Integer#MIN_VALUE}
+     */
+    int findPackedHijri(int epochDay) {
+        if (epochDay < minEpochDay || epochDay >= maxEpochDay) {
+            return Integer.MIN_VALUE;
+        }
+        return toPackedHijri(epochDay);
+    }
+
+    private int toPackedHijri(int epochDay) {
+        int epochMonth = epochDayToEpochMonth(epochDay);
+        int year = epochMonthToYear(epochMonth);
+        int month = epochMonthToMonth(epochMonth); // ms: keep 0-based.
+        int date = epochDay - epochMonthToEpochDay(epochMonth);
+        return HijrahChronology.pack(year, month, date + 1); // change to 1-based.
+    }
+
+    /**
+     * Return the epoch day computed from Hijrah year, month, and day.
+     *
+     * @param prolepticYear the year to represent, 0-origin
+     * @param monthOfYear   the month-of-year to represent, 1-origin
+     * @param dayOfMonth    the day-of-month to represent, 1-origin
+     * @return the epoch day
+     * @throws DateTimeException if the date is invalid or out of range
+     */
+    int getEpochDay(int prolepticYear, int monthOfYear, int dayOfMonth) {
+        if (monthOfYear < 1 || monthOfYear > 12) {
+            throw new DateTimeException("Invalid Hijrah month: " + monthOfYear);
+        }
+        int epochMonth = yearToEpochMonth(prolepticYear) + (monthOfYear - 1);
+        if (epochMonth < 0 || epochMonth >= epochMonthStartDays.length - 1) {
+            throw new DateTimeException("Invalid Hijrah date, year: " +
+                    prolepticYear + ", month: " + monthOfYear);
+        }
+        if (dayOfMonth < 1 || dayOfMonth > epochMonthLength(epochMonth)) {
+            throw new DateTimeException("Invalid Hijrah day of month: " + dayOfMonth);
+        }
+        return epochMonthToEpochDay(epochMonth) + (dayOfMonth - 1);
+    }
+
+    /**
+     * Returns the epoch day of a date, or {@link Integer#MIN_VALUE} if the date is invalid or
+     * out of range. Unlike {@link #getEpochDay(int, int, int)} this method never throws and
+     * reads the year tables only.
+     *
+     * @param prolepticYear a proleptic year
+     * @param month         a month, 0-origin
+     * @param dayOfMonth    a day of month, 1-origin
+     * @return the epoch day, or {@link Integer#MIN_VALUE}
+     */
+    int findEpochDay(int prolepticYear, int month, int dayOfMonth) {
+        int ndx = prolepticYear - hijrahStartEpochMonth / 12;
+        if (ndx < 0 || ndx >= yearStartDays.length - 1 || month < 0 || month > 11
+                || dayOfMonth < 1) {
+            return Integer.MIN_VALUE;
+        }
+        int monthLengths = yearMonthLengths[ndx];
+        if (dayOfMonth > 29 + ((monthLengths >>> month) & 1)) {
+            return Integer.MIN_VALUE;
+        }
+        // every month before this one has 29 days plus one for each 30 day month
+        return yearStartDays[ndx] + 29 * month + Integer.bitCount(monthLengths & ((1 << month) - 1))
+                + (dayOfMonth - 1);
+    }
+
+    /**
+     * Returns month length for the year and month.
+     *
+     * @param prolepticYear a proleptic year
+     * @param monthOfYear   a month, 1-origin.
+     * @return the length of the month
+     * @throws DateTimeException if the month is out of range
+     */
+    int getMonthLength(int prolepticYear, int monthOfYear) {
+        int epochMonth = yearToEpochMonth(prolepticYear) + (monthOfYear - 1);
+        if (epochMonth < 0 || epochMonth >= epochMonthStartDays.length - 1) {
+            throw new DateTimeException("Invalid Hijrah date, year: " +
+                    prolepticYear + ", month: " + monthOfYear);
+        }
+        return epochMonthLength(epochMonth);
+    }
+
+    /**
+     * Returns year length.
+     * Note: The 12th month must exist in the data.
+     *
+     * @param prolepticYear a proleptic year
+     * @return year length in days
+     */
+    int getYearLength(int prolepticYear) {
+        int ndx = yearIndex(prolepticYear);
+        return yearStartDays[ndx + 1] - yearStartDays[ndx];
+    }
+
+    /**
+     * Returns the epoch day of the first day of a year.
+     *
+     * @param prolepticYear a proleptic year
+     * @return the epoch day of the first day of the year
+     * @throws DateTimeException if the year is out of range
+     */
+    int getYearStartEpochDay(int prolepticYear) {
+        return yearStartDays[yearIndex(prolepticYear)];
+    }
+
+    /**
+     * Returns the month lengths of a year packed as described by {@link #yearMonthLengths}.
+     *
+     * @param prolepticYear a proleptic year
+     * @return the packed month lengths
+     * @throws DateTimeException if the year is out of range
+     */
+    int getMonthLengths(int prolepticYear) {
+        return yearMonthLengths[yearIndex(prolepticYear)];
+    }
+
+    private int yearIndex(int prolepticYear) {
+        int ndx = prolepticYear - hijrahStartEpochMonth / 12;
+        if (ndx < 0 || ndx >= yearStartDays.length - 1) {
+            throw new DateTimeException("Invalid Hijrah year: " + prolepticYear);
+        }
+        return ndx;
+    }
+
+    /**
+     * Return the minimum supported Hijrah year.
+     *
+     * @return the minimum
+     */
+    int getMinimumYear() {
+        return epochMonthToYear(0);
+    }
+
+    /**
+     * Return the maximum supported Hijrah year.
+     *
+     * @return the maximum
+     */
+    int getMaximumYear() {
+        return epochMonthToYear(epochMonthStartDays.length - 1) - 1;
+    }
+
+    /**
+     * Returns the epochMonth found by locating the epochDay in the table. The
+     * epochMonth is the index in the table
+     *
+     * @param epochDay epochDay; assumed to be within range
+     * @return The index of the element of the start of the month containing the
+     * epochDay.
+     */
+    int epochDayToEpochMonth(int epochDay) {
+        char[] index = epochMonthIndex;
+        if (index == null) {
+            // binary search
+            int ndx = Arrays.binarySearch(epochMonthStartDays, epochDay);
+            if (ndx < 0) {
+                ndx = -ndx - 2;
+            }
+            return ndx;
+        }
+
+        // An index entry spans at most one month boundary, so one fix-up step is enough
+        int ndx = index[(epochDay - minEpochDay) >> epochMonthIndexShift];
+        if (epochDay >= epochMonthStartDays[ndx + 1]) {
+            ndx++;
+        }
+        return ndx;
+    }
+
+    /**
+     * Returns the year computed from the epochMonth
+     *
+     * @param epochMonth the epochMonth
+     * @return the Hijrah Year
+     */
+    int epochMonthToYear(int epochMonth) {
+        return (epochMonth + hijrahStartEpochMonth) / 12;
+    }
+
+    /**
+     * Returns the epochMonth for the Hijrah Year.
+     *
+     * @param year the HijrahYear
+     * @return the epochMonth for the beginning of the year.
+     */
+    int yearToEpochMonth(int year) {
+        return (year * 12) - hijrahStartEpochMonth;
+    }
+
+    /**
+     * Returns the Hijrah month from the epochMonth.
+     *
+     * @param epochMonth the epochMonth
+     * @return the month of the Hijrah Year, 0-based
+     */
+    int epochMonthToMonth(int epochMonth) {
+        return (epochMonth + hijrahStartEpochMonth) % 12;
+    }
+
+    /**
+     * Returns the epochDay for the start of the epochMonth.
+     *
+     * @param epochMonth the epochMonth
+     * @return the epochDay for the start of the epochMonth.
+     */
+    int epochMonthToEpochDay(int epochMonth) {
+        return epochMonthStartDays[epochMonth];
+    }
+
+    /**
+     * Returns the day of year for the requested HijrahYear and month.
+     *
+     * @param prolepticYear the Hijrah year
+     * @param month         the Hijrah month
+     * @return the day of year for the start of the month of the year
+     */
+    int yearMonthToDayOfYear(int prolepticYear, int month) {
+        int epochMonthFirst = yearToEpochMonth(prolepticYear);
+        return epochMonthToEpochDay(epochMonthFirst + month)
+                - epochMonthToEpochDay(epochMonthFirst);
+    }
+
+    /**
+     * Returns the length of the epochMonth. It is computed from the start of
+     * the following month minus the start of the requested month.
+     *
+     * @param epochMonth the epochMonth; assumed to be within range
+     * @return the length in days of the epochMonth
+     */
+    int epochMonthLength(int epochMonth) {
+        // The very last entry in the epochMonth table is not the start of a month
+        return epochMonthStartDays[epochMonth + 1] - epochMonthStartDays[epochMonth];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HijrahData)) {
+            return false;
+        }
+        HijrahData other = (HijrahData) obj;
+        return id.equals(other.id)
+                && version.equals(other.version)
+                && hijrahStartEpochMonth == other.hijrahStartEpochMonth
+                && minMonthLength == other.minMonthLength
+                && maxMonthLength == other.maxMonthLength
+                && minYearLength == other.minYearLength
+                && maxYearLength == other.maxYearLength
+                && Arrays.equals(epochMonthStartDays, other.epochMonthStartDays);
+    }
+
+    @Override
+    public int hashCode() {
+        return (id.hashCode() * 31 + version.hashCode()) * 31
+                + Arrays.hashCode(epochMonthStartDays);
+    }
+
+    /**
+     * Picks the start of every year, and the day after the last year, out of the table of month
+     * start days.
+     *
+     * @param epochMonthStartDays the epoch days of the start of each month
+     * @return the epoch days of the start of each year
+     */
+    private static int[] createYearStartDays(int[] epochMonthStartDays) {
+        int[] yearStartDays = new int[(epochMonthStartDays.length - 1) / 12 + 1];
+        for (int i = 0; i < yearStartDays.length; i++) {
+            yearStartDays[i] = epochMonthStartDays[i * 12];
+        }
+        return yearStartDays;
+    }
+
+    /**
+     * Checks the length of a month read from a configuration, before any table is built from it.
+     *
+     * @param year   the Hijrah year of the month
+     * @param length the length of the month in days
+     * @throws IllegalArgumentException if the month has neither 29 nor 30 days
+     */
+    private static void checkMonthLength(int year, int length) {
+        if (length < 29 || length > 30) {
+            throw new IllegalArgumentException("Invalid month length in year: " + year);
+        }
+    }
+
+    /**
+     * Packs the month lengths of every year into one bit per month, set for 30 days. The lengths
+     * have been checked by {@link #checkMonthLength(int, int)}.
+     *
+     * @param epochMonthStartDays the epoch days of the start of each month
+     * @return the packed month lengths of each year
+     */
+    private static char[] createYearMonthLengths(int[] epochMonthStartDays) {
+        char[] yearMonthLengths = new char[(epochMonthStartDays.length - 1) / 12];
+        for (int epochMonth = 0; epochMonth < epochMonthStartDays.length - 1; epochMonth++) {
+            if (epochMonthStartDays[epochMonth + 1] - epochMonthStartDays[epochMonth] == 30) {
+                yearMonthLengths[epochMonth / 12] |= 1 << (epochMonth % 12);
+            }
+        }
+        return yearMonthLengths;
+    }
+
+    /**
+     * Converts the map of year to month lengths ranging from minYear to maxYear
+     * into a linear contiguous array of epochDays. The index is the hijrahMonth
+     * computed from year and month and offset by minYear. The value of each
+     * entry is the epochDay corresponding to the first day of the month.
+     *
+     * @param minYear The minimum year for which data is provided
+     * @param maxYear The maximum year for which data is provided
+     * @param years   a Map of year to the array of 12 month lengths
+     * @return array of epochDays for each month from min to max
+     */
+    private static int[] createEpochMonths(int epochDay, int minYear, int maxYear, Map<Integer, int[]> years) {
+        // Compute the size for the array of dates
+        int numMonths = (maxYear - minYear + 1) * 12 + 1;
+
+        // Initialize the running epochDay as the corresponding ISO Epoch day
+        int epochMonth = 0; // index into array of epochMonths
+        int[] epochMonths = new int[numMonths];
+
+        // Only whole years are valid, any zero's in the array are illegal
+        for (int year = minYear; year <= maxYear; year++) {
+            int[] months = years.get(year);// must not be gaps
+            if (months == null) {
+                throw new IllegalArgumentException("Missing year: " + year);
+            }
+            for (int month = 0; month < 12; month++) {
+                epochMonths[epochMonth++] = epochDay;
+                epochDay += months[month];
+            }
+        }
+
+        // Insert the final epochDay
+        epochMonths[epochMonth++] = epochDay;
+
+        if (epochMonth != epochMonths.length) {
+            throw new IllegalStateException("Did not fill epochMonths exactly: ndx = " + epochMonth
+                    + " should be " + epochMonths.length);
+        }
+
+        return epochMonths;
+    }
+
+    /**
+     * Creates the index mapping ranges of {@code 1 << shift} epoch days to the epoch month
+     * containing the first day of the range.
+     *
+     * @param epochMonths the array of epochDays for each month
+     * @param shift       the number of days covered by one entry, as a power of two
+     * @return the index
+     * @throws IllegalArgumentException if the table has too many months to be indexed by char
+     */
+    private static char[] createEpochMonthIndex(int[] epochMonths, int shift) {
+        if (epochMonths.length > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many months to index: " + epochMonths.length);
+        }
+        int firstDay = epochMonths[0];
+        int days = epochMonths[epochMonths.length - 1] - firstDay;
+        char[] index = new char[((days - 1) >> shift) + 1];
+
+        int epochMonth = 0;
+        for (int i = 0; i < index.length; i++) {
+            int epochDay = firstDay + (i << shift);
+            while (epochMonths[epochMonth + 1] <= epochDay) {
+                epochMonth++;
+            }
+            index[i] = (char) epochMonth;
+        }
+        return index;
+    }
+
+    /**
+     * Parses the 12 months lengths from a property value for a specific year.
+     *
+     * @param line the value of a year property
+     * @return an array of int[12] containing the 12 month lengths
+     * @throws IllegalArgumentException if the number of months is not 12
+     * @throws NumberFormatException    if the 12 tokens are not numbers
+     */
+    private static int[] parseMonths(String line) {
+        int[] months = new int[12];
+        String[] numbers = line.split("\\s");
+        if (numbers.length != 12) {
+            throw new IllegalArgumentException("wrong number of months on line: " + Arrays.toString(numbers) + "; count: " + numbers.length);
+        }
+        for (int i = 0; i < 12; i++) {
+            try {
+                months[i] = Integer.parseInt(numbers[i]);
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("bad key: " + numbers[i]);
+            }
+        }
+        return months;
+    }
+
+    /**
+     * Parse yyyy-MM-dd into a 3 element array [yyyy, mm, dd].
+     *
+     * @param string the input string
+     * @return the 3 element array with year, month, day
+     */
+    private static int[] parseYMD(String string) {
+        // yyyy-MM-dd
+        string = string.trim();
+        try {
+            if (string.charAt(4) != '-' || string.charAt(7) != '-') {
+                throw new IllegalArgumentException("date must be yyyy-MM-dd");
+            }
+            int[] ymd = new int[3];
+            ymd[0] = Integer.parseInt(string.substring(0, 4));
+            ymd[1] = Integer.parseInt(string.substring(5, 7));
+            ymd[2] = Integer.parseInt(string.substring(8, 10));
+            return ymd;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("date must be yyyy-MM-dd", ex);
+        }
+    }
+}
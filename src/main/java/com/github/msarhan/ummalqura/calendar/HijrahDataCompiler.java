@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Properties;
+import java.util.TimeZone;
+
+/**
+ * Compiles a Hijrah calendar configuration in the {@code hijrah-config.properties} grammar into
+ * the compact binary form loaded by {@link HijrahChronology}, so that the properties do not have
+ * to be parsed at startup.
+ * <p>
+ * Run by the build to generate {@code hijrah-config.dat} next to {@code hijrah-config.properties}:
+ * <pre>
+ *   java com.github.msarhan.ummalqura.calendar.HijrahDataCompiler &lt;properties&gt; &lt;output&gt;
+ * </pre>
+ * The output is read back and its table is checked month by month against the configuration
+ * text, read independently of the {@link HijrahData} parser; any difference fails the
+ * compilation. This class is only used by the build.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+final class HijrahDataCompiler {
+
+    private HijrahDataCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException(
+                    "Usage: HijrahDataCompiler <hijrah-config.properties> <output>");
+        }
+        compile(new File(args[0]), new File(args[1]));
+    }
+
+    /**
+     * Compiles a calendar configuration file.
+     *
+     * @param config the calendar configuration in the properties grammar
+     * @param output the file receiving the compiled data, parent directories are created
+     * @throws IOException           if reading or writing fails
+     * @throws IllegalStateException if the compiled data does not match the configuration
+     */
+    static void compile(File config, File output) throws IOException {
+        HijrahData data;
+        try (InputStream is = new BufferedInputStream(new FileInputStream(config))) {
+            data = HijrahData.parse(is);
+        }
+
+        File dir = output.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Unable to create directory: " + dir);
+        }
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(output))) {
+            data.writeTo(os);
+        }
+
+        HijrahData compiled;
+        try (InputStream is = new BufferedInputStream(new FileInputStream(output))) {
+            compiled = HijrahData.readFrom(is);
+        }
+        Properties props = new Properties();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(config))) {
+            props.load(is);
+        }
+        verify(props, compiled, output + " does not match " + config);
+    }
+
+    /**
+     * Checks a table against the text of a calendar configuration: every month of every year
+     * must start on the day following the previous month, counting from the ISO start date.
+     *
+     * @param props    the calendar configuration
+     * @param compiled the table read back from the compiled form
+     * @param message  the message of the exception thrown on a difference
+     * @throws IllegalStateException if the table does not match the configuration
+     */
+    static void verify(Properties props, HijrahData compiled, String message) {
+        if (!props.getProperty("id", "").equals(compiled.id)
+                || !props.getProperty("version", "").equals(compiled.version)) {
+            throw new IllegalStateException(message + ": id or version");
+        }
+        String[] isoStart = props.getProperty("iso-start", "").trim().split("-");
+        GregorianCalendar start = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        start.setGregorianChange(new Date(Long.MIN_VALUE));
+        start.clear();
+        start.set(Integer.parseInt(isoStart[0]), Integer.parseInt(isoStart[1]) - 1,
+                Integer.parseInt(isoStart[2]));
+        long millis = start.getTimeInMillis();
+        int epochDay = (int) (millis / 86400000L - (millis % 86400000L < 0 ? 1 : 0));
+
+        int minYear = compiled.getMinimumYear();
+        int maxYear = compiled.getMaximumYear();
+        int years = 0;
+        for (String key : props.stringPropertyNames()) {
+            if (!key.isEmpty() && Character.isDigit(key.charAt(0))) {
+                years++;
+            }
+        }
+        if (years != maxYear - minYear + 1) {
+            throw new IllegalStateException(message + ": number of years");
+        }
+        for (int year = minYear; year <= maxYear; year++) {
+            String line = props.getProperty(Integer.toString(year));
+            if (line == null) {
+                throw new IllegalStateException(message + ": year " + year);
+            }
+            String[] lengths = line.trim().split("\\s+");
+            if (lengths.length != 12) {
+                throw new IllegalStateException(message + ": year " + year);
+            }
+            for (int month = 0; month < 12; month++) {
+                if (compiled.getEpochDay(year, month + 1, 1) != epochDay) {
+                    throw new IllegalStateException(message + ": start of month " + (month + 1)
+                            + " of year " + year);
+                }
+                epochDay += Integer.parseInt(lengths[month]);
+            }
+        }
+        if (compiled.maxEpochDay != epochDay) {
+            throw new IllegalStateException(message + ": end of the table");
+        }
+    }
+}
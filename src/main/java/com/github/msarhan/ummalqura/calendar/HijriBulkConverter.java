@@ -0,0 +1,402 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.util.BitSet;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts arrays of dates with a {@link HijrahChronology}, writing into caller supplied arrays.
+ * <p>
+ * Hijrah dates are packed as described by {@link HijrahChronology#pack(int, int, int)}. Inputs
+ * longer than the parallelism threshold are split across a {@link ForkJoinPool}; every element
+ * is converted independently, so sequential and parallel results are identical. Each call reads
+ * the calendar data once and converts all elements against it, so a concurrent
+ * {@link HijrahChronology#replaceData(java.io.InputStream) replacement} never yields a mix of two
+ * tables in one result. Validation
+ * methods report invalid rows in a {@link BitSet} instead of throwing, and run on the calling
+ * thread.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriBulkConverter {
+
+    /**
+     * The default number of elements below which a conversion runs on the calling thread.
+     */
+    public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+    private final HijrahChronology chronology;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Creates a converter for {@link HijrahChronology#INSTANCE} using a shared pool and the
+     * {@link #DEFAULT_THRESHOLD}.
+     */
+    public HijriBulkConverter() {
+        this(HijrahChronology.INSTANCE, null, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a converter.
+     *
+     * @param chronology the chronology used for conversions
+     * @param pool       the pool running parallel conversions, or {@code null} to use a shared
+     *                   pool sized to the available processors
+     * @param threshold  the number of elements below which a conversion, or a part of it, runs
+     *                   sequentially; {@link Integer#MAX_VALUE} disables parallelism
+     * @throws IllegalArgumentException if threshold is less than 1
+     */
+    public HijriBulkConverter(HijrahChronology chronology, ForkJoinPool pool, int threshold) {
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Invalid threshold: " + threshold);
+        }
+        this.chronology = chronology;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns the number of elements below which a conversion runs sequentially.
+     *
+     * @return the parallelism threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Converts instants to packed Hijrah dates as seen in the given time zone.
+     *
+     * @param src     the epoch millis
+     * @param srcPos  the first index to read in {@code src}
+     * @param dest    the array receiving packed Hijrah dates
+     * @param destPos the first index to write in {@code dest}
+     * @param length  the number of elements to convert
+     * @param zone    the time zone used to find the local dates
+     * @throws DateTimeException         if a date is out of the supported range
+     * @throws IndexOutOfBoundsException if a range is outside its array
+     */
+    public void epochMillisToPackedHijri(long[] src, int srcPos, int[] dest, int destPos,
+                                         int length, TimeZone zone) {
+        checkRange(src.length, srcPos, length);
+        checkRange(dest.length, destPos, length);
+        if (zone == null) {
+            throw new NullPointerException("zone");
+        }
+        run(new EpochMillisTask(chronology.snapshot(), threshold, src, srcPos, dest, destPos, zone,
+                0, length), length);
+    }
+
+    /**
+     * Converts instants to packed Hijrah dates as seen in the given time zone.
+     *
+     * @param src  the epoch millis
+     * @param dest the array receiving packed Hijrah dates, at least as long as {@code src}
+     * @param zone the time zone used to find the local dates
+     * @throws DateTimeException         if a date is out of the supported range
+     * @throws IndexOutOfBoundsException if {@code dest} is too short
+     */
+    public void epochMillisToPackedHijri(long[] src, int[] dest, TimeZone zone) {
+        epochMillisToPackedHijri(src, 0, dest, 0, src.length, zone);
+    }
+
+    /**
+     * Converts ISO epoch days to packed Hijrah dates.
+     *
+     * @param src     the epoch days
+     * @param srcPos  the first index to read in {@code src}
+     * @param dest    the array receiving packed Hijrah dates
+     * @param destPos the first index to write in {@code dest}
+     * @param length  the number of elements to convert
+     * @throws DateTimeException         if a date is out of the supported range
+     * @throws IndexOutOfBoundsException if a range is outside its array
+     */
+    public void epochDaysToPackedHijri(int[] src, int srcPos, int[] dest, int destPos,
+                                       int length) {
+        checkRange(src.length, srcPos, length);
+        checkRange(dest.length, destPos, length);
+        run(new EpochDayTask(chronology.snapshot(), threshold, src, srcPos, dest, destPos, 0,
+                length), length);
+    }
+
+    /**
+     * Converts ISO epoch days to packed Hijrah dates.
+     *
+     * @param src  the epoch days
+     * @param dest the array receiving packed Hijrah dates, at least as long as {@code src}
+     * @throws DateTimeException         if a date is out of the supported range
+     * @throws IndexOutOfBoundsException if {@code dest} is too short
+     */
+    public void epochDaysToPackedHijri(int[] src, int[] dest) {
+        epochDaysToPackedHijri(src, 0, dest, 0, src.length);
+    }
+
+    /**
+     * Converts packed Hijrah dates to ISO epoch days.
+     *
+     * @param src     the packed Hijrah dates
+     * @param srcPos  the first index to read in {@code src}
+     * @param dest    the array receiving epoch days
+     * @param destPos the first index to write in {@code dest}
+     * @param length  the number of elements to convert
+     * @throws DateTimeException         if a date is invalid or out of the supported range
+     * @throws IndexOutOfBoundsException if a range is outside its array
+     */
+    public void packedHijriToEpochDays(int[] src, int srcPos, int[] dest, int destPos,
+                                       int length) {
+        checkRange(src.length, srcPos, length);
+        checkRange(dest.length, destPos, length);
+        run(new PackedHijriTask(chronology.snapshot(), threshold, src, srcPos, dest, destPos, 0,
+                length), length);
+    }
+
+    /**
+     * Converts packed Hijrah dates to ISO epoch days.
+     *
+     * @param src  the packed Hijrah dates
+     * @param dest the array receiving epoch days, at least as long as {@code src}
+     * @throws DateTimeException         if a date is invalid or out of the supported range
+     * @throws IndexOutOfBoundsException if {@code dest} is too short
+     */
+    public void packedHijriToEpochDays(int[] src, int[] dest) {
+        packedHijriToEpochDays(src, 0, dest, 0, src.length);
+    }
+
+    /**
+     * Finds the invalid dates among rows of years, months and days. A row is invalid when the
+     * date does not exist in the calendar data, see
+     * {@link HijrahChronology#isValid(int, int, int)}. No exception is thrown for invalid rows.
+     *
+     * @param years  the Hijrah years
+     * @param months the Hijrah months, 0-based
+     * @param days   the days of month, 1-based
+     * @return the indexes of the invalid rows
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public BitSet findInvalid(int[] years, int[] months, int[] days) {
+        if (years.length != months.length || years.length != days.length) {
+            throw new IllegalArgumentException("Arrays have different lengths: " + years.length
+                    + ", " + months.length + ", " + days.length);
+        }
+        HijrahData data = chronology.snapshot();
+        BitSet invalid = new BitSet();
+        for (int i = 0; i < years.length; i++) {
+            if (data.findEpochDay(years[i], months[i], days[i])
+                    == HijrahChronology.INVALID_DATE) {
+                invalid.set(i);
+            }
+        }
+        return invalid;
+    }
+
+    /**
+     * Finds the invalid dates among packed Hijrah dates.
+     *
+     * @param packedDates the Hijrah dates packed by {@link HijrahChronology#pack(int, int, int)}
+     * @return the indexes of the invalid dates
+     */
+    public BitSet findInvalid(int[] packedDates) {
+        HijrahData data = chronology.snapshot();
+        BitSet invalid = new BitSet();
+        for (int i = 0; i < packedDates.length; i++) {
+            int packedDate = packedDates[i];
+            if (data.findEpochDay(HijrahChronology.packedYear(packedDate),
+                    HijrahChronology.packedMonth(packedDate),
+                    HijrahChronology.packedDay(packedDate)) == HijrahChronology.INVALID_DATE) {
+                invalid.set(i);
+            }
+        }
+        return invalid;
+    }
+
+    private void run(BulkTask task, int length) {
+        if (length <= threshold) {
+            task.compute();
+        } else {
+            (pool != null ? pool : SharedPool.POOL).invoke(task);
+        }
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+                    + ", array length: " + arrayLength);
+        }
+    }
+
+    /**
+     * Lazily created pool shared by converters that were not given one.
+     */
+    private static final class SharedPool {
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Converts the elements {@code [from, to)} of a bulk request, splitting in halves until a
+     * part is not longer than the threshold.
+     */
+    private abstract static class BulkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The calendar data read once for the whole request.
+         */
+        final HijrahData data;
+        final int threshold;
+        final int from;
+        final int to;
+
+        BulkTask(HijrahData data, int threshold, int from, int to) {
+            this.data = data;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                convert();
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(split(from, mid), split(mid, to));
+            }
+        }
+
+        abstract BulkTask split(int from, int to);
+
+        abstract void convert();
+    }
+
+    private static final class EpochMillisTask extends BulkTask {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] src;
+        private final int srcPos;
+        private final int[] dest;
+        private final int destPos;
+        private final TimeZone zone;
+
+        EpochMillisTask(HijrahData data, int threshold, long[] src, int srcPos,
+                        int[] dest, int destPos, TimeZone zone, int from, int to) {
+            super(data, threshold, from, to);
+            this.src = src;
+            this.srcPos = srcPos;
+            this.dest = dest;
+            this.destPos = destPos;
+            this.zone = zone;
+        }
+
+        @Override
+        BulkTask split(int from, int to) {
+            return new EpochMillisTask(data, threshold, src, srcPos, dest, destPos, zone,
+                    from, to);
+        }
+
+        @Override
+        void convert() {
+            for (int i = from; i < to; i++) {
+                int epochDay = HijrahChronology.toEpochDay(src[srcPos + i], zone);
+                dest[destPos + i] = data.epochDayToPackedHijri(epochDay);
+            }
+        }
+    }
+
+    private static final class EpochDayTask extends BulkTask {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int srcPos;
+        private final int[] dest;
+        private final int destPos;
+
+        EpochDayTask(HijrahData data, int threshold, int[] src, int srcPos,
+                     int[] dest, int destPos, int from, int to) {
+            super(data, threshold, from, to);
+            this.src = src;
+            this.srcPos = srcPos;
+            this.dest = dest;
+            this.destPos = destPos;
+        }
+
+        @Override
+        BulkTask split(int from, int to) {
+            return new EpochDayTask(data, threshold, src, srcPos, dest, destPos, from, to);
+        }
+
+        @Override
+        void convert() {
+            for (int i = from; i < to; i++) {
+                dest[destPos + i] = data.epochDayToPackedHijri(src[srcPos + i]);
+            }
+        }
+    }
+
+    private static final class PackedHijriTask extends BulkTask {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int srcPos;
+        private final int[] dest;
+        private final int destPos;
+
+        PackedHijriTask(HijrahData data, int threshold, int[] src, int srcPos,
+                        int[] dest, int destPos, int from, int to) {
+            super(data, threshold, from, to);
+            this.src = src;
+            this.srcPos = srcPos;
+            this.dest = dest;
+            this.destPos = destPos;
+        }
+
+        @Override
+        BulkTask split(int from, int to) {
+            return new PackedHijriTask(data, threshold, src, srcPos, dest, destPos, from, to);
+        }
+
+        @Override
+        void convert() {
+            for (int i = from; i < to; i++) {
+                int packedDate = src[srcPos + i];
+                dest[destPos + i] = data.getEpochDay(HijrahChronology.packedYear(packedDate),
+                        HijrahChronology.packedMonth(packedDate) + 1,
+                        HijrahChronology.packedDay(packedDate));
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.util.BitSet;
+import java.util.Calendar;
+
+/**
+ * Counts working days over the dates of a {@link HijrahChronology}, given weekend days and a set
+ * of holidays.
+ * <p>
+ * The calendar covers the epoch days of the chronology data. It keeps a prefix sum of working
+ * days over that range, so {@link #isWorkingDay(int)} and {@link #workingDaysBetween(int, int)}
+ * take constant time and {@link #addWorkingDays(int, int)} takes a binary search. When the data
+ * is {@linkplain HijrahChronology#replaceData(java.io.InputStream) replaced} the range follows it
+ * on the next call; holidays outside the new range are dropped.
+ * <p>
+ * Each change of holidays copies the sums and rebuilds them from the earliest changed day, which
+ * takes time proportional to the range, about 106,000 days for the default data. The new sums are
+ * then published at once, so readers never see a partial update. Pass many days to
+ * {@link #addHolidays(int...)} or {@link #removeHolidays(int...)} rather than changing them one at
+ * a time, which would copy the sums once per day.
+ * <p>
+ * Days are ISO epoch days; use {@link HijrahChronology#hijriToEpochDay(int, int, int)} and
+ * {@link HijrahChronology#epochDayToPackedHijri(int)} to convert from and to Hijrah dates, or the
+ * Hijrah date overloads.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriBusinessCalendar {
+
+    private final HijrahChronology chronology;
+    /**
+     * Bit {@code d} is set when day of week {@code d}, e.g. {@link Calendar#FRIDAY}, is a weekend
+     * day.
+     */
+    private final int weekendDays;
+    private volatile State state;
+
+    /**
+     * Creates a calendar over the dates of {@link HijrahChronology#INSTANCE} without holidays.
+     *
+     * @param weekendDays the days of week which are not working days, e.g.
+     *                    {@link Calendar#FRIDAY} and {@link Calendar#SATURDAY}
+     * @throws IllegalArgumentException if a day of week is invalid
+     */
+    public HijriBusinessCalendar(int... weekendDays) {
+        this(HijrahChronology.INSTANCE, weekendDays);
+    }
+
+    /**
+     * Creates a calendar over the dates of a chronology without holidays.
+     *
+     * @param chronology  the chronology whose dates are covered
+     * @param weekendDays the days of week which are not working days, e.g.
+     *                    {@link Calendar#FRIDAY} and {@link Calendar#SATURDAY}
+     * @throws IllegalArgumentException if a day of week is invalid
+     */
+    public HijriBusinessCalendar(HijrahChronology chronology, int... weekendDays) {
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        int mask = 0;
+        for (int dayOfWeek : weekendDays) {
+            if (dayOfWeek < Calendar.SUNDAY || dayOfWeek > Calendar.SATURDAY) {
+                throw new IllegalArgumentException("Invalid day of week: " + dayOfWeek);
+            }
+            mask |= 1 << dayOfWeek;
+        }
+        this.chronology = chronology;
+        this.weekendDays = mask;
+        state = createState(null);
+    }
+
+    /**
+     * Returns the chronology whose dates are covered by this calendar.
+     *
+     * @return the chronology
+     */
+    public HijrahChronology getChronology() {
+        return chronology;
+    }
+
+    /**
+     * Checks whether a day of week is a weekend day.
+     *
+     * @param dayOfWeek the day of week, e.g. {@link Calendar#FRIDAY}
+     * @return true if the day of week is not a working day
+     */
+    public boolean isWeekend(int dayOfWeek) {
+        return dayOfWeek >= Calendar.SUNDAY && dayOfWeek <= Calendar.SATURDAY
+                && ((weekendDays >>> dayOfWeek) & 1) != 0;
+    }
+
+    /**
+     * Checks whether a day is a working day, neither a weekend day nor a holiday.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return true if the day is a working day
+     * @throws DateTimeException if the day is out of the range of this calendar
+     */
+    public boolean isWorkingDay(int epochDay) {
+        State s = state();
+        int index = s.index(epochDay);
+        return s.prefix[index + 1] != s.prefix[index];
+    }
+
+    /**
+     * Checks whether a Hijrah date is a working day, neither a weekend day nor a holiday.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @return true if the date is a working day
+     * @throws DateTimeException if the date is invalid or out of the range of this calendar
+     */
+    public boolean isWorkingDay(int year, int month, int day) {
+        return isWorkingDay(chronology.hijriToEpochDay(year, month, day));
+    }
+
+    /**
+     * Checks whether a day is a holiday.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return true if the day is a holiday
+     * @throws DateTimeException if the day is out of the range of this calendar
+     */
+    public boolean isHoliday(int epochDay) {
+        State s = state();
+        return s.holidays.get(s.index(epochDay));
+    }
+
+    /**
+     * Returns the number of working days from {@code fromEpochDay}, inclusive, to
+     * {@code toEpochDay}, exclusive. The result is negative if {@code toEpochDay} is before
+     * {@code fromEpochDay}.
+     *
+     * @param fromEpochDay the first ISO epoch day
+     * @param toEpochDay   the ISO epoch day after the last one; may be the day after the range
+     *                     of this calendar
+     * @return the number of working days
+     * @throws DateTimeException if a day is out of the range of this calendar
+     */
+    public int workingDaysBetween(int fromEpochDay, int toEpochDay) {
+        State s = state();
+        return s.prefix[s.boundIndex(toEpochDay)] - s.prefix[s.boundIndex(fromEpochDay)];
+    }
+
+    /**
+     * Returns the working day a number of working days after or before a day. The day itself is
+     * not counted, so adding 1 to a Thursday before a Friday and Saturday weekend gives the
+     * Sunday. Adding 0 returns the day unchanged.
+     *
+     * @param epochDay    the ISO epoch day, day 0 is 1970-01-01
+     * @param workingDays the number of working days to add, negative to go back
+     * @return the ISO epoch day of the resulting working day
+     * @throws DateTimeException if a day is out of the range of this calendar
+     */
+    public int addWorkingDays(int epochDay, int workingDays) {
+        State s = state();
+        int[] prefix = s.prefix;
+        int index = s.index(epochDay);
+        if (workingDays == 0) {
+            return epochDay;
+        }
+        // the result is the working day d such that prefix[d + 1] == target
+        long target = workingDays > 0
+                ? (long) prefix[index + 1] + workingDays : (long) prefix[index] + workingDays + 1;
+        if (target < 1 || target > prefix[s.length]) {
+            throw new DateTimeException("Working day out of range");
+        }
+        // smallest j with prefix[j] >= target
+        int low = 1;
+        int high = s.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prefix[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return s.minEpochDay + low - 1;
+    }
+
+    /**
+     * Makes a day a holiday.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the day is out of the range of this calendar
+     */
+    public void addHoliday(int epochDay) {
+        update(new int[]{epochDay}, true);
+    }
+
+    /**
+     * Makes a Hijrah date a holiday.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @throws DateTimeException if the date is invalid or out of the range of this calendar
+     */
+    public void addHoliday(int year, int month, int day) {
+        addHoliday(chronology.hijriToEpochDay(year, month, day));
+    }
+
+    /**
+     * Makes days holidays, rebuilding the working day counts once.
+     *
+     * @param epochDays the ISO epoch days
+     * @throws DateTimeException if a day is out of the range of this calendar; no day is changed
+     */
+    public void addHolidays(int... epochDays) {
+        update(epochDays, true);
+    }
+
+    /**
+     * Makes a day a working day again, unless it is a weekend day.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the day is out of the range of this calendar
+     */
+    public void removeHoliday(int epochDay) {
+        update(new int[]{epochDay}, false);
+    }
+
+    /**
+     * Makes days working days again, unless they are weekend days, rebuilding the working day
+     * counts once.
+     *
+     * @param epochDays the ISO epoch days
+     * @throws DateTimeException if a day is out of the range of this calendar; no day is changed
+     */
+    public void removeHolidays(int... epochDays) {
+        update(epochDays, false);
+    }
+
+    @Override
+    public String toString() {
+        return "HijriBusinessCalendar[" + chronology.getId() + "]";
+    }
+
+    /**
+     * Returns the current state, rebuilt first if the chronology data has been replaced.
+     */
+    private State state() {
+        State s = state;
+        return s.generation == chronology.getGeneration() ? s : refresh();
+    }
+
+    private synchronized State refresh() {
+        State s = state;
+        if (s.generation != chronology.getGeneration()) {
+            s = createState(s);
+            state = s;
+        }
+        return s;
+    }
+
+    /**
+     * Creates the state over the range of the current chronology data, keeping the holidays of a
+     * previous state which are in the new range.
+     */
+    private State createState(State previous) {
+        // read before the data, a concurrent replacement only causes one more refresh
+        long generation = chronology.getGeneration();
+        int minYear = chronology.getMinimumYear();
+        int maxYear = chronology.getMaximumYear();
+        int minEpochDay = chronology.firstEpochDayOfYear(minYear);
+        int length = chronology.firstEpochDayOfYear(maxYear) + chronology.lengthOfYear(maxYear)
+                - minEpochDay;
+
+        BitSet holidays = new BitSet(length);
+        if (previous != null) {
+            BitSet old = previous.holidays;
+            for (int i = old.nextSetBit(0); i >= 0; i = old.nextSetBit(i + 1)) {
+                long index = (long) previous.minEpochDay + i - minEpochDay;
+                if (index >= 0 && index < length) {
+                    holidays.set((int) index);
+                }
+            }
+        }
+        State s = new State(generation, minEpochDay, length, new int[length + 1], holidays);
+        rebuild(s, 0);
+        return s;
+    }
+
+    private synchronized void update(int[] epochDays, boolean holiday) {
+        State s = state();
+        for (int epochDay : epochDays) {
+            s.index(epochDay);
+        }
+        BitSet holidays = (BitSet) s.holidays.clone();
+        int first = s.length;
+        for (int epochDay : epochDays) {
+            int index = epochDay - s.minEpochDay;
+            if (holidays.get(index) != holiday) {
+                holidays.set(index, holiday);
+                first = Math.min(first, index);
+            }
+        }
+        if (first == s.length) {
+            return; // nothing changed
+        }
+        State updated = new State(s.generation, s.minEpochDay, s.length, s.prefix.clone(), holidays);
+        rebuild(updated, first);
+        state = updated;
+    }
+
+    /**
+     * Recomputes the working day counts of a state following day {@code from}.
+     */
+    private void rebuild(State s, int from) {
+        int[] prefix = s.prefix;
+        int count = prefix[from];
+        // epoch day 0 is a Thursday
+        int dow0 = (s.minEpochDay + from + 4) % 7;
+        int dayOfWeek = (dow0 < 0 ? dow0 + 7 : dow0) + 1;
+        for (int i = from; i < s.length; i++) {
+            if (((weekendDays >>> dayOfWeek) & 1) == 0 && !s.holidays.get(i)) {
+                count++;
+            }
+            prefix[i + 1] = count;
+            dayOfWeek = dayOfWeek == Calendar.SATURDAY ? Calendar.SUNDAY : dayOfWeek + 1;
+        }
+    }
+
+    /**
+     * The holidays and the working day counts derived from them; {@code prefix[i]} is the number
+     * of working days among the first {@code i} days of the range.
+     */
+    private static final class State {
+
+        /**
+         * The generation of the chronology data the range was taken from.
+         */
+        final long generation;
+        /**
+         * The first epoch day covered.
+         */
+        final int minEpochDay;
+        /**
+         * The number of days covered.
+         */
+        final int length;
+        final int[] prefix;
+        final BitSet holidays;
+
+        State(long generation, int minEpochDay, int length, int[] prefix, BitSet holidays) {
+            this.generation = generation;
+            this.minEpochDay = minEpochDay;
+            this.length = length;
+            this.prefix = prefix;
+            this.holidays = holidays;
+        }
+
+        int index(int epochDay) {
+            long index = (long) epochDay - minEpochDay;
+            if (index < 0 || index >= length) {
+                throw new DateTimeException("Day out of range: " + epochDay);
+            }
+            return (int) index;
+        }
+
+        int boundIndex(int epochDay) {
+            long index = (long) epochDay - minEpochDay;
+            if (index < 0 || index > length) {
+                throw new DateTimeException("Day out of range: " + epochDay);
+            }
+            return (int) index;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A clock giving the current Umm Al-Qura date of a time zone, cached until the next local
+ * midnight.
+ * <p>
+ * The date and its formatted forms change once a day, so a clock keeps them in an immutable
+ * snapshot together with the epoch millis of the start of the local day and of the next local
+ * midnight. Reading the date costs a call to the time source and two comparisons; the first
+ * reader past a boundary builds a new snapshot and publishes it without locking. Snapshots are
+ * also rebuilt when the data of {@link HijrahChronology#INSTANCE} is replaced.
+ * <p>
+ * {@link #of(TimeZone)} returns shared clocks reading the system time; a time zone whose rules
+ * differ from those of the system time zone with the same ID gets a clock of its own. A clock
+ * with its own
+ * {@link TimeSource} can be created for tests.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriClock {
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * The maximum number of formatted forms cached per day, bounding the cache for callers that
+     * create a new formatter per call.
+     */
+    private static final int MAX_FORMATTED = 16;
+
+    private static final TimeSource SYSTEM = new TimeSource() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Shared clocks of the system time, by time zone ID. Only clocks of time zones having the
+     * rules of the system time zone with their ID are cached.
+     */
+    private static final ConcurrentMap<String, HijriClock> CLOCKS = new ConcurrentHashMap<>();
+
+    private final TimeZone zone;
+    private final TimeSource source;
+    private volatile Day day;
+
+    /**
+     * Creates a clock.
+     *
+     * @param zone   the time zone used to find the local date, copied by this constructor
+     * @param source the source of the current time
+     */
+    public HijriClock(TimeZone zone, TimeSource source) {
+        if (zone == null) {
+            throw new NullPointerException("zone");
+        }
+        if (source == null) {
+            throw new NullPointerException("source");
+        }
+        this.zone = (TimeZone) zone.clone();
+        this.source = source;
+    }
+
+    /**
+     * Returns the shared clock of a time zone reading the system time. The clock is shared with
+     * time zones having the same ID and rules, and is a new clock when {@code zone} has rules
+     * other than those of the system time zone with its ID.
+     *
+     * @param zone the time zone used to find the local date
+     * @return the clock
+     */
+    public static HijriClock of(TimeZone zone) {
+        String id = zone.getID();
+        HijriClock clock = CLOCKS.get(id);
+        if (clock != null && clock.zone.hasSameRules(zone)) {
+            return clock;
+        }
+        HijriClock created = new HijriClock(zone, SYSTEM);
+        if (clock != null || !zone.hasSameRules(TimeZone.getTimeZone(id))) {
+            return created;
+        }
+        clock = CLOCKS.putIfAbsent(id, created);
+        return clock != null && clock.zone.hasSameRules(zone) ? clock : created;
+    }
+
+    /**
+     * Returns the shared clock of the default time zone reading the system time.
+     *
+     * @return the clock
+     */
+    public static HijriClock systemDefaultZone() {
+        return of(TimeZone.getDefault());
+    }
+
+    /**
+     * Returns the time zone of this clock.
+     *
+     * @return a copy of the time zone
+     */
+    public TimeZone getZone() {
+        return (TimeZone) zone.clone();
+    }
+
+    /**
+     * Returns the current time of the time source.
+     *
+     * @return the milliseconds since 1970-01-01T00:00:00Z
+     */
+    public long millis() {
+        return source.currentTimeMillis();
+    }
+
+    /**
+     * Returns the current date.
+     *
+     * @return today's date
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public HijriDate today() {
+        return current().date;
+    }
+
+    /**
+     * Returns the ISO epoch day of the current date.
+     *
+     * @return today's ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public int todayEpochDay() {
+        return current().date.toEpochDay();
+    }
+
+    /**
+     * Returns the current date packed as described by {@link HijrahChronology#pack(int, int, int)}.
+     *
+     * @return today's packed date
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public int todayPacked() {
+        return current().date.toPacked();
+    }
+
+    /**
+     * Returns the current date as {@code yyyy-MM-dd}.
+     *
+     * @return today's date as text
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public String todayText() {
+        return current().text;
+    }
+
+    /**
+     * Formats the current date. The result is cached for the rest of the day, so
+     * {@code formatter} should not print time fields; they print the start of the day.
+     *
+     * @param formatter the formatter
+     * @return today's date formatted by {@code formatter}
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public String format(HijriDateFormatter formatter) {
+        Day d = current();
+        String text = d.formatted.get(formatter);
+        if (text == null) {
+            text = formatter.format(d.date.toEpochDay());
+            if (d.formatted.size() < MAX_FORMATTED) {
+                d.formatted.putIfAbsent(formatter, text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Returns the epoch millis at which the current date ends in the time zone of this clock.
+     *
+     * @return the milliseconds since 1970-01-01T00:00:00Z of the next local midnight
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public long nextMidnightMillis() {
+        return current().endMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "HijriClock[" + zone.getID() + "]";
+    }
+
+    private Day current() {
+        long now = source.currentTimeMillis();
+        Day d = day;
+        if (d == null || now < d.startMillis || now >= d.endMillis
+                || d.generation != HijrahChronology.INSTANCE.getGeneration()) {
+            d = new Day(now, zone);
+            day = d; // racing readers build equal snapshots, the last one wins
+        }
+        return d;
+    }
+
+    /**
+     * Returns the first instant of a local day, given an instant close to it.
+     */
+    private static long startOfDay(long epochDay, long near, TimeZone zone) {
+        long localMillis = epochDay * MILLIS_PER_DAY;
+        long estimate = localMillis - zone.getOffset(localMillis - zone.getOffset(near));
+        // the offset may change close to midnight, or a whole day may be skipped, so search
+        // around the estimate for the first instant of the day
+        long low = estimate - MILLIS_PER_DAY;
+        long high = estimate + MILLIS_PER_DAY;
+        while (low < high) {
+            long mid = low + (high - low) / 2;
+            if (HijrahChronology.toEpochDay(mid, zone) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The current date of a clock and the instants between which it is valid.
+     */
+    private static final class Day {
+
+        final long generation;
+        final HijriDate date;
+        final String text;
+        final long startMillis;
+        final long endMillis;
+        final ConcurrentMap<HijriDateFormatter, String> formatted = new ConcurrentHashMap<>();
+
+        Day(long now, TimeZone zone) {
+            generation = HijrahChronology.INSTANCE.getGeneration();
+            int epochDay = HijrahChronology.toEpochDay(now, zone);
+            date = HijriDate.ofEpochDay(epochDay);
+            text = date.toString();
+            startMillis = startOfDay(epochDay, now, zone);
+            endMillis = startOfDay(epochDay + 1L, now, zone);
+        }
+    }
+
+    /**
+     * Supplies the current time to a {@link HijriClock}.
+     */
+    public interface TimeSource {
+
+        /**
+         * Returns the current time.
+         *
+         * @return the milliseconds since 1970-01-01T00:00:00Z
+         */
+        long currentTimeMillis();
+    }
+}
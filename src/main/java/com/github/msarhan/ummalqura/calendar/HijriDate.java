@@ -0,0 +1,333 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.Serializable;
+import java.util.TimeZone;
+
+/**
+ * An immutable Umm Al-Qura date, a lightweight alternative to {@link UmmalquraCalendar} for
+ * passing dates around and using them as keys.
+ * <p>
+ * A date is identified by its ISO epoch day. Its packed Hijrah date (see
+ * {@link HijrahChronology#pack(int, int, int)}) is resolved from the table of month start days of
+ * {@link HijrahChronology#INSTANCE} and cached together with the
+ * {@linkplain HijrahChronology#getGeneration() generation} of that table, so after
+ * {@link HijrahChronology#replaceData(java.io.InputStream)} the fields are derived again from the
+ * new table. Arithmetic works on the table directly and never involves
+ * {@link java.util.Calendar}. Months are 0-based, as in {@link UmmalquraCalendar#MONTH}.
+ * <p>
+ * {@link #toKey()} gives a decimal {@code yyyymmdd} key that sorts in chronological order and
+ * converts back with {@link #ofKey(int)}, suitable for maps and database columns.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriDate implements Comparable<HijriDate>, Serializable {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = -2349385710397238117L;
+
+    /**
+     * The ISO epoch day, day 0 is 1970-01-01.
+     */
+    private final int epochDay;
+    /**
+     * The Hijrah date packed as {@code year << 16 | month << 8 | day}, month 0-based, in the low
+     * 32 bits and the generation it was resolved from plus one in the high 32 bits, 0 if not
+     * resolved yet. A single volatile field so that both halves are always read together.
+     */
+    private transient volatile long packedCache;
+
+    private HijriDate(int epochDay, long generation, int packedDate) {
+        this.epochDay = epochDay;
+        this.packedCache = cacheEntry(generation, packedDate);
+    }
+
+    private static long cacheEntry(long generation, int packedDate) {
+        return (generation + 1) << 32 | (packedDate & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the packed date in the current data of {@link HijrahChronology#INSTANCE}. The
+     * generation is read before the table so that a concurrent replacement can only make the
+     * cached entry look older than it is.
+     */
+    private int packedDate() {
+        long generation = HijrahChronology.INSTANCE.getGeneration();
+        long cache = packedCache;
+        if (cache >>> 32 == ((generation + 1) & 0xFFFFFFFFL)) {
+            return (int) cache;
+        }
+        int packedDate = HijrahChronology.INSTANCE.epochDayToPackedHijri(epochDay);
+        packedCache = cacheEntry(generation, packedDate);
+        return packedDate;
+    }
+
+    /**
+     * Obtains a date from a year, month and day.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based, e.g. {@link UmmalquraCalendar#RAMADHAN}
+     * @param day   the day of month, 1-based
+     * @return the date
+     * @throws DateTimeException if the date is invalid or out of the supported range
+     */
+    public static HijriDate of(int year, int month, int day) {
+        long generation = HijrahChronology.INSTANCE.getGeneration();
+        int epochDay = HijrahChronology.INSTANCE.hijriToEpochDay(year, month, day);
+        return new HijriDate(epochDay, generation, HijrahChronology.pack(year, month, day));
+    }
+
+    /**
+     * Obtains the date of an ISO epoch day.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the date
+     * @throws DateTimeException if the epoch day is out of the supported range
+     */
+    public static HijriDate ofEpochDay(int epochDay) {
+        long generation = HijrahChronology.INSTANCE.getGeneration();
+        return new HijriDate(epochDay, generation, HijrahChronology.INSTANCE.epochDayToPackedHijri(epochDay));
+    }
+
+    /**
+     * Obtains the date of an instant as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @return the date
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public static HijriDate ofEpochMillis(long epochMillis, TimeZone zone) {
+        return ofEpochDay(HijrahChronology.toEpochDay(epochMillis, zone));
+    }
+
+    /**
+     * Obtains a date from a key returned by {@link #toKey()}.
+     *
+     * @param key the date as the decimal number {@code yyyymmdd}, month 1-based
+     * @return the date
+     * @throws DateTimeException if the key is not a valid date
+     */
+    public static HijriDate ofKey(int key) {
+        return of(key / 10000, key / 100 % 100 - 1, key % 100);
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Returns the year.
+     *
+     * @return the Hijrah year
+     */
+    public int getYear() {
+        return HijrahChronology.packedYear(packedDate());
+    }
+
+    /**
+     * Returns the month.
+     *
+     * @return the Hijrah month, 0-based
+     */
+    public int getMonth() {
+        return HijrahChronology.packedMonth(packedDate());
+    }
+
+    /**
+     * Returns the day of month.
+     *
+     * @return the day of month, 1-based
+     */
+    public int getDayOfMonth() {
+        return HijrahChronology.packedDay(packedDate());
+    }
+
+    /**
+     * Returns the day of year.
+     *
+     * @return the day of year, 1-based
+     */
+    public int getDayOfYear() {
+        int packedDate = packedDate();
+        return HijrahChronology.INSTANCE.getDayOfYear(HijrahChronology.packedYear(packedDate),
+                HijrahChronology.packedMonth(packedDate) + 1) + HijrahChronology.packedDay(packedDate);
+    }
+
+    /**
+     * Returns the day of week.
+     *
+     * @return the day of week, {@link java.util.Calendar#SUNDAY} to
+     * {@link java.util.Calendar#SATURDAY}
+     */
+    public int getDayOfWeek() {
+        // epoch day 0 is a Thursday
+        int dow0 = (epochDay + 4) % 7;
+        return (dow0 < 0 ? dow0 + 7 : dow0) + 1;
+    }
+
+    /**
+     * Returns the length of the month of this date.
+     *
+     * @return 29 or 30
+     */
+    public int lengthOfMonth() {
+        int packedDate = packedDate();
+        return HijrahChronology.INSTANCE.lengthOfMonth(HijrahChronology.packedYear(packedDate),
+                HijrahChronology.packedMonth(packedDate));
+    }
+
+    /**
+     * Returns the length of the year of this date.
+     *
+     * @return 354 or 355
+     */
+    public int lengthOfYear() {
+        return HijrahChronology.INSTANCE.lengthOfYear(getYear());
+    }
+
+    /**
+     * Returns the ISO epoch day of this date.
+     *
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     */
+    public int toEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * Returns this date packed as described by {@link HijrahChronology#pack(int, int, int)}.
+     *
+     * @return the packed date, month 0-based
+     */
+    public int toPacked() {
+        return packedDate();
+    }
+
+    /**
+     * Returns this date as the decimal number {@code yyyymmdd} with a 1-based month, e.g.
+     * {@code 14360523}. Keys sort in chronological order.
+     *
+     * @return the key
+     */
+    public int toKey() {
+        int packedDate = packedDate();
+        return HijrahChronology.packedYear(packedDate) * 10000
+                + (HijrahChronology.packedMonth(packedDate) + 1) * 100
+                + HijrahChronology.packedDay(packedDate);
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Returns a copy of this date with the given number of days added.
+     *
+     * @param days the days to add, may be negative
+     * @return the resulting date
+     * @throws DateTimeException if the result is out of the supported range
+     */
+    public HijriDate plusDays(int days) {
+        return days == 0 ? this : ofEpochDay(epochDay + days);
+    }
+
+    /**
+     * Returns a copy of this date with the given number of months added. The day of month is
+     * clamped to the length of the resulting month, e.g. the 30th becomes the 29th.
+     *
+     * @param months the months to add, may be negative
+     * @return the resulting date
+     * @throws DateTimeException if the result is out of the supported range
+     */
+    public HijriDate plusMonths(int months) {
+        if (months == 0) {
+            return this;
+        }
+        int packedDate = packedDate();
+        long epochMonth = HijrahChronology.packedYear(packedDate) * 12L
+                + HijrahChronology.packedMonth(packedDate) + months;
+        int year = (int) (epochMonth / 12);
+        int month = (int) (epochMonth % 12);
+        if (month < 0) {
+            year--;
+            month += 12;
+        }
+        return resolvePreviousValid(year, month, HijrahChronology.packedDay(packedDate));
+    }
+
+    /**
+     * Returns a copy of this date with the given number of years added. The day of month is
+     * clamped to the length of the resulting month.
+     *
+     * @param years the years to add, may be negative
+     * @return the resulting date
+     * @throws DateTimeException if the result is out of the supported range
+     */
+    public HijriDate plusYears(int years) {
+        if (years == 0) {
+            return this;
+        }
+        int packedDate = packedDate();
+        return resolvePreviousValid(HijrahChronology.packedYear(packedDate) + years,
+                HijrahChronology.packedMonth(packedDate), HijrahChronology.packedDay(packedDate));
+    }
+
+    private static HijriDate resolvePreviousValid(int year, int month, int day) {
+        return of(year, month, Math.min(day, HijrahChronology.INSTANCE.lengthOfMonth(year, month)));
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public int compareTo(HijriDate other) {
+        return epochDay < other.epochDay ? -1 : (epochDay == other.epochDay ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj instanceof HijriDate && epochDay == ((HijriDate) obj).epochDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return epochDay;
+    }
+
+    /**
+     * Returns this date as {@code yyyy-MM-dd} with a 1-based month, e.g. {@code 1436-05-23}.
+     *
+     * @return the date as a string
+     */
+    @Override
+    public String toString() {
+        int packedDate = packedDate();
+        int month = HijrahChronology.packedMonth(packedDate) + 1;
+        int day = HijrahChronology.packedDay(packedDate);
+        return HijrahChronology.packedYear(packedDate) + (month < 10 ? "-0" : "-") + month
+                + (day < 10 ? "-0" : "-") + day;
+    }
+}
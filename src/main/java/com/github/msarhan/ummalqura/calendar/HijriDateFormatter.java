@@ -0,0 +1,593 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.IOException;
+import java.text.DateFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formats Umm Al-Qura dates with a pattern compiled once into a sequence of printers.
+ * <p>
+ * This is an immutable and thread-safe alternative to {@link java.text.SimpleDateFormat} with an
+ * {@link UmmalquraCalendar}. Dates are formatted straight from an ISO epoch day, or epoch millis
+ * and a time zone, into an {@link Appendable}; no {@link java.util.Calendar} or intermediate
+ * strings are created. Month names come from the same {@code UmmalquraFormatData} bundles as
+ * {@link UmmalquraCalendar#getDisplayName(int, int, Locale)}.
+ * <p>
+ * The following pattern letters are supported, with the same meaning as in
+ * {@link java.text.SimpleDateFormat}:
+ * <pre>
+ *  y  year              yy prints the last two digits, otherwise padded to the count
+ *  M  month             M, MM numeric; MMM short name; MMMM and longer full name
+ *  d  day of month
+ *  D  day of year
+ *  E  day of week       E to EEE short name; EEEE and longer full name
+ *  a  am/pm marker
+ *  H  hour of day, 0-23
+ *  h  hour of am/pm, 1-12
+ *  m  minute
+ *  s  second
+ *  S  millisecond
+ * </pre>
+ * Other ASCII letters are reserved. Text between single quotes is printed as is and
+ * {@code ''} prints a single quote.
+ * <p>
+ * Numbers are printed with Latin digits unless another {@link DigitStyle} is selected with
+ * {@link #withDigitStyle(DigitStyle)}; digits are then written directly from a lookup table, so
+ * Arabic output needs no second pass over the formatted text.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriDateFormatter {
+
+    private static final int MILLIS_PER_DAY = 86400000;
+
+    private static final int YEAR = 0;
+    private static final int MONTH = 1;
+    private static final int DAY_OF_MONTH = 2;
+    private static final int DAY_OF_YEAR = 3;
+    private static final int HOUR_OF_DAY = 4;
+    private static final int HOUR = 5;
+    private static final int MINUTE = 6;
+    private static final int SECOND = 7;
+    private static final int MILLISECOND = 8;
+
+    private final String pattern;
+    private final Locale locale;
+    private final HijrahChronology chronology;
+    private final DigitStyle digitStyle;
+    /**
+     * The digits of {@link #digitStyle}, indexed by value.
+     */
+    private final char[] digits;
+    private final Printer[] printers;
+
+    private HijriDateFormatter(String pattern, Locale locale, HijrahChronology chronology) {
+        this.pattern = pattern;
+        this.locale = locale;
+        this.chronology = chronology;
+        this.digitStyle = DigitStyle.LATIN;
+        this.digits = DigitStyle.LATIN.digits;
+        this.printers = compile(pattern, locale);
+    }
+
+    private HijriDateFormatter(HijriDateFormatter formatter, DigitStyle digitStyle) {
+        this.pattern = formatter.pattern;
+        this.locale = formatter.locale;
+        this.chronology = formatter.chronology;
+        this.digitStyle = digitStyle;
+        this.digits = digitStyle.digits;
+        this.printers = formatter.printers;
+    }
+
+    /**
+     * Creates a formatter for {@link HijrahChronology#INSTANCE} using the default format locale.
+     *
+     * @param pattern the pattern
+     * @return the formatter
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static HijriDateFormatter ofPattern(String pattern) {
+        return ofPattern(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Creates a formatter for {@link HijrahChronology#INSTANCE}.
+     *
+     * @param pattern the pattern
+     * @param locale  the locale of month, day of week and am/pm names
+     * @return the formatter
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static HijriDateFormatter ofPattern(String pattern, Locale locale) {
+        return ofPattern(pattern, locale, HijrahChronology.INSTANCE);
+    }
+
+    /**
+     * Creates a formatter.
+     *
+     * @param pattern    the pattern
+     * @param locale     the locale of month, day of week and am/pm names
+     * @param chronology the chronology used to find Hijrah dates
+     * @return the formatter
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static HijriDateFormatter ofPattern(String pattern, Locale locale,
+                                               HijrahChronology chronology) {
+        if (pattern == null) {
+            throw new NullPointerException("pattern");
+        }
+        if (locale == null) {
+            throw new NullPointerException("locale");
+        }
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        return new HijriDateFormatter(pattern, locale, chronology);
+    }
+
+    /**
+     * Returns the pattern of this formatter.
+     *
+     * @return the pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the locale of this formatter.
+     *
+     * @return the locale
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Returns the chronology of this formatter.
+     *
+     * @return the chronology
+     */
+    public HijrahChronology getChronology() {
+        return chronology;
+    }
+
+    /**
+     * Returns the digits used to print numbers.
+     *
+     * @return the digit style
+     */
+    public DigitStyle getDigitStyle() {
+        return digitStyle;
+    }
+
+    /**
+     * Returns a copy of this formatter printing numbers with the given digits. The compiled
+     * pattern is shared with this formatter.
+     *
+     * @param digitStyle the digit style
+     * @return a formatter with the given digit style
+     */
+    public HijriDateFormatter withDigitStyle(DigitStyle digitStyle) {
+        if (digitStyle == null) {
+            throw new NullPointerException("digitStyle");
+        }
+        return digitStyle == this.digitStyle ? this : new HijriDateFormatter(this, digitStyle);
+    }
+
+    /**
+     * Formats the start of an ISO epoch day.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the formatted date
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public String format(int epochDay) {
+        StringBuilder sb = new StringBuilder(32);
+        formatTo(epochDay, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Formats an instant as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date and time
+     * @return the formatted date
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public String format(long epochMillis, TimeZone zone) {
+        StringBuilder sb = new StringBuilder(32);
+        formatTo(epochMillis, zone, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Formats the start of an ISO epoch day into a {@link StringBuilder}.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @param sb       the builder to append to
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public void formatTo(int epochDay, StringBuilder sb) {
+        try {
+            formatTo(epochDay, (Appendable) sb);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+    }
+
+    /**
+     * Formats an instant as seen in the given time zone into a {@link StringBuilder}.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date and time
+     * @param sb          the builder to append to
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public void formatTo(long epochMillis, TimeZone zone, StringBuilder sb) {
+        try {
+            formatTo(epochMillis, zone, (Appendable) sb);
+        } catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+    }
+
+    /**
+     * Formats the start of an ISO epoch day into an {@link Appendable}.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @param out      the appendable to write to
+     * @throws DateTimeException if the date is out of the supported range
+     * @throws IOException       if writing to {@code out} fails
+     */
+    public void formatTo(int epochDay, Appendable out) throws IOException {
+        print(out, epochDay, 0);
+    }
+
+    /**
+     * Formats an instant as seen in the given time zone into an {@link Appendable}.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date and time
+     * @param out         the appendable to write to
+     * @throws DateTimeException if the date is out of the supported range
+     * @throws IOException       if writing to {@code out} fails
+     */
+    public void formatTo(long epochMillis, TimeZone zone, Appendable out) throws IOException {
+        long localMillis = epochMillis + zone.getOffset(epochMillis);
+        int millisOfDay = (int) (localMillis % MILLIS_PER_DAY);
+        if (millisOfDay < 0) {
+            millisOfDay += MILLIS_PER_DAY; // floor for instants before 1970
+        }
+        print(out, HijrahChronology.toEpochDay(epochMillis, zone), millisOfDay);
+    }
+
+    private void print(Appendable out, int epochDay, int millisOfDay) throws IOException {
+        int packedDate = chronology.epochDayToPackedHijri(epochDay);
+        for (Printer printer : printers) {
+            printer.print(out, this, epochDay, packedDate, millisOfDay);
+        }
+    }
+
+    private int value(int field, int epochDay, int packedDate, int millisOfDay) {
+        switch (field) {
+            case YEAR:
+                return HijrahChronology.packedYear(packedDate);
+            case MONTH:
+                return HijrahChronology.packedMonth(packedDate) + 1;
+            case DAY_OF_MONTH:
+                return HijrahChronology.packedDay(packedDate);
+            case DAY_OF_YEAR:
+                return epochDay - chronology.firstEpochDayOfYear(
+                        HijrahChronology.packedYear(packedDate)) + 1;
+            case HOUR_OF_DAY:
+                return millisOfDay / 3600000;
+            case HOUR:
+                int hour = millisOfDay / 3600000 % 12;
+                return hour == 0 ? 12 : hour;
+            case MINUTE:
+                return millisOfDay / 60000 % 60;
+            case SECOND:
+                return millisOfDay / 1000 % 60;
+            case MILLISECOND:
+                return millisOfDay % 1000;
+            default:
+                throw new AssertionError(field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HijriDateFormatter[" + pattern + ", " + locale + ", " + digitStyle + "]";
+    }
+
+    private static Printer[] compile(String pattern, Locale locale) {
+        List<Printer> printers = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        UmmalquraDateFormatSymbols symbols = null;
+        DateFormatSymbols dateSymbols = null;
+        int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = i + 1;
+                if (end < length && pattern.charAt(end) == '\'') {
+                    literal.append('\'');
+                    i = end + 1;
+                    continue;
+                }
+                while (true) {
+                    if (end >= length) {
+                        throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < length && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end++));
+                }
+                i = end + 1;
+                continue;
+            }
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int count = 1;
+            while (i + count < length && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            if (literal.length() > 0) {
+                printers.add(new LiteralPrinter(literal.toString()));
+                literal.setLength(0);
+            }
+            switch (c) {
+                case 'y':
+                    printers.add(count == 2 ? new TwoDigitYearPrinter() : new NumberPrinter(YEAR, count));
+                    break;
+                case 'M':
+                    if (count >= 3) {
+                        if (symbols == null) {
+                            symbols = UmmalquraDateFormatSymbols.getInstance(locale);
+                        }
+                        printers.add(new MonthPrinter(count == 3 ? symbols.shortMonths : symbols.months));
+                    } else {
+                        printers.add(new NumberPrinter(MONTH, count));
+                    }
+                    break;
+                case 'd':
+                    printers.add(new NumberPrinter(DAY_OF_MONTH, count));
+                    break;
+                case 'D':
+                    printers.add(new NumberPrinter(DAY_OF_YEAR, count));
+                    break;
+                case 'E':
+                    if (dateSymbols == null) {
+                        dateSymbols = DateFormatSymbols.getInstance(locale);
+                    }
+                    printers.add(new DayOfWeekPrinter(count >= 4
+                            ? dateSymbols.getWeekdays() : dateSymbols.getShortWeekdays()));
+                    break;
+                case 'a':
+                    if (dateSymbols == null) {
+                        dateSymbols = DateFormatSymbols.getInstance(locale);
+                    }
+                    printers.add(new AmPmPrinter(dateSymbols.getAmPmStrings()));
+                    break;
+                case 'H':
+                    printers.add(new NumberPrinter(HOUR_OF_DAY, count));
+                    break;
+                case 'h':
+                    printers.add(new NumberPrinter(HOUR, count));
+                    break;
+                case 'm':
+                    printers.add(new NumberPrinter(MINUTE, count));
+                    break;
+                case 's':
+                    printers.add(new NumberPrinter(SECOND, count));
+                    break;
+                case 'S':
+                    printers.add(new NumberPrinter(MILLISECOND, count));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Illegal pattern character '" + c + "'");
+            }
+            i += count;
+        }
+        if (literal.length() > 0) {
+            printers.add(new LiteralPrinter(literal.toString()));
+        }
+        return printers.toArray(new Printer[printers.size()]);
+    }
+
+    /**
+     * Appends a non-negative number padded with zeros to {@code width} digits, using this
+     * formatter's digits.
+     */
+    private void appendNumber(Appendable out, int value, int width) throws IOException {
+        int count = 1;
+        int divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+            count++;
+        }
+        for (int i = count; i < width; i++) {
+            out.append(digits[0]);
+        }
+        while (divisor > 0) {
+            out.append(digits[value / divisor % 10]);
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * The digits used to print numbers.
+     */
+    public enum DigitStyle {
+        /**
+         * Latin digits, {@code U+0030} to {@code U+0039}.
+         */
+        LATIN('0'),
+        /**
+         * Arabic-Indic digits, {@code U+0660} to {@code U+0669}.
+         */
+        ARABIC_INDIC('\u0660'),
+        /**
+         * Extended Arabic-Indic digits, {@code U+06F0} to {@code U+06F9}, as used in Persian
+         * and Urdu.
+         */
+        EXTENDED_ARABIC_INDIC('\u06F0');
+
+        final char[] digits = new char[10];
+
+        DigitStyle(char zero) {
+            for (int i = 0; i < 10; i++) {
+                digits[i] = (char) (zero + i);
+            }
+        }
+
+        /**
+         * Returns the digit of a value.
+         *
+         * @param value a value from 0 to 9
+         * @return the digit
+         */
+        public char digit(int value) {
+            return digits[value];
+        }
+    }
+
+    /**
+     * Prints one element of a compiled pattern.
+     */
+    private abstract static class Printer {
+
+        abstract void print(Appendable out, HijriDateFormatter formatter, int epochDay,
+                            int packedDate, int millisOfDay) throws IOException;
+    }
+
+    private static final class LiteralPrinter extends Printer {
+
+        private final String text;
+
+        LiteralPrinter(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            out.append(text);
+        }
+    }
+
+    private static final class NumberPrinter extends Printer {
+
+        private final int field;
+        private final int width;
+
+        NumberPrinter(int field, int width) {
+            this.field = field;
+            this.width = width;
+        }
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            formatter.appendNumber(out, formatter.value(field, epochDay, packedDate, millisOfDay),
+                    width);
+        }
+    }
+
+    private static final class TwoDigitYearPrinter extends Printer {
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            formatter.appendNumber(out, HijrahChronology.packedYear(packedDate) % 100, 2);
+        }
+    }
+
+    private static final class MonthPrinter extends Printer {
+
+        private final String[] names;
+
+        MonthPrinter(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            out.append(names[HijrahChronology.packedMonth(packedDate)]);
+        }
+    }
+
+    private static final class DayOfWeekPrinter extends Printer {
+
+        private final String[] names;
+
+        DayOfWeekPrinter(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            // epoch day 0 is a Thursday; names are indexed by Calendar.SUNDAY to SATURDAY
+            int dow0 = (epochDay + 4) % 7;
+            out.append(names[(dow0 < 0 ? dow0 + 7 : dow0) + 1]);
+        }
+    }
+
+    private static final class AmPmPrinter extends Printer {
+
+        private final String[] markers;
+
+        AmPmPrinter(String[] markers) {
+            this.markers = markers;
+        }
+
+        @Override
+        void print(Appendable out, HijriDateFormatter formatter, int epochDay, int packedDate,
+                   int millisOfDay) throws IOException {
+            out.append(markers[millisOfDay < MILLIS_PER_DAY / 2 ? 0 : 1]);
+        }
+    }
+}
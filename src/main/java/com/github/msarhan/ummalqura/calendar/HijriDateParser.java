@@ -0,0 +1,524 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses Umm Al-Qura dates laid out as numbers and literal text, such as {@code 1445/09/01} or
+ * <code>01-09-1445 &#x647;&#x640;</code>, into ISO epoch days or packed Hijrah dates.
+ * <p>
+ * A pattern is compiled once from the letters {@code y} (year), {@code M} (month) and {@code d}
+ * (day of month), each of which must appear exactly once. A field of one letter reads one to two
+ * digits, or one to four for the year; a longer field reads exactly as many digits as letters.
+ * Month and day fields are numeric and have at most two letters. Any other character is literal
+ * text that must match exactly; text between single quotes is literal too and {@code ''} is a
+ * single quote. Digits may be ASCII, Arabic-Indic ({@code U+0660} to {@code U+0669}) or Extended
+ * Arabic-Indic ({@code U+06F0} to {@code U+06F9}).
+ * <p>
+ * Text is read from a {@link CharSequence}, or from UTF-8 bytes in a {@code byte[]} or
+ * {@link ByteBuffer}. Dates are validated against the month lengths of the chronology. Parsing
+ * neither allocates nor throws: a failure returns {@link #INVALID} and, when a
+ * {@link ParsePosition} is given, sets its error index.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriDateParser {
+
+    /**
+     * The value returned when the text cannot be parsed or is not a valid date.
+     */
+    public static final int INVALID = HijrahChronology.INVALID_DATE;
+
+    private static final int YEAR = 0;
+    private static final int MONTH = 1;
+    private static final int DAY = 2;
+    private static final int LITERAL = 3;
+
+    private final String pattern;
+    private final HijrahChronology chronology;
+    /**
+     * The compiled elements, parallel arrays indexed by element.
+     */
+    private final int[] types;
+    private final int[] minWidths;
+    private final int[] maxWidths;
+    private final String[] literals;
+    private final byte[][] literalBytes;
+
+    private HijriDateParser(String pattern, HijrahChronology chronology) {
+        this.pattern = pattern;
+        this.chronology = chronology;
+
+        List<String> elements = split(pattern);
+        int size = elements.size();
+        types = new int[size];
+        minWidths = new int[size];
+        maxWidths = new int[size];
+        literals = new String[size];
+        literalBytes = new byte[size][];
+        boolean[] seen = new boolean[LITERAL];
+        for (int i = 0; i < size; i++) {
+            String element = elements.get(i);
+            if (element.charAt(0) == '\'') {
+                types[i] = LITERAL;
+                literals[i] = element.substring(1);
+                literalBytes[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+                continue;
+            }
+            int type;
+            switch (element.charAt(0)) {
+                case 'y':
+                    type = YEAR;
+                    break;
+                case 'M':
+                    type = MONTH;
+                    break;
+                case 'd':
+                    type = DAY;
+                    break;
+                default:
+                    throw new IllegalArgumentException(
+                            "Illegal pattern character '" + element.charAt(0) + "'");
+            }
+            if (seen[type]) {
+                throw new IllegalArgumentException("Duplicate field in pattern: " + pattern);
+            }
+            seen[type] = true;
+            int count = element.length();
+            if (type != YEAR && count > 2) {
+                throw new IllegalArgumentException("Only numeric fields are supported: " + element);
+            }
+            types[i] = type;
+            minWidths[i] = count;
+            maxWidths[i] = count > 1 ? count : type == YEAR ? 4 : 2;
+        }
+        if (!seen[YEAR] || !seen[MONTH] || !seen[DAY]) {
+            throw new IllegalArgumentException("Pattern must contain y, M and d: " + pattern);
+        }
+    }
+
+    /**
+     * Creates a parser for {@link HijrahChronology#INSTANCE}.
+     *
+     * @param pattern the pattern, e.g. {@code "yyyy/MM/dd"}
+     * @return the parser
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static HijriDateParser ofPattern(String pattern) {
+        return ofPattern(pattern, HijrahChronology.INSTANCE);
+    }
+
+    /**
+     * Creates a parser.
+     *
+     * @param pattern    the pattern, e.g. {@code "yyyy/MM/dd"}
+     * @param chronology the chronology used to validate and convert dates
+     * @return the parser
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static HijriDateParser ofPattern(String pattern, HijrahChronology chronology) {
+        if (pattern == null) {
+            throw new NullPointerException("pattern");
+        }
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        return new HijriDateParser(pattern, chronology);
+    }
+
+    /**
+     * Returns the pattern of this parser.
+     *
+     * @return the pattern
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the chronology of this parser.
+     *
+     * @return the chronology
+     */
+    public HijrahChronology getChronology() {
+        return chronology;
+    }
+
+    /**
+     * Parses the whole text to an ISO epoch day.
+     *
+     * @param text the text
+     * @return the ISO epoch day, or {@link #INVALID}
+     */
+    public int parseEpochDay(CharSequence text) {
+        return parse(text, 0, text.length(), null, true);
+    }
+
+    /**
+     * Parses text starting at the index of {@code pos} to an ISO epoch day. On success the index
+     * of {@code pos} is moved past the parsed text, which may be followed by other text; on
+     * failure its error index is set to where the failure was found.
+     *
+     * @param text the text
+     * @param pos  the position to start from
+     * @return the ISO epoch day, or {@link #INVALID}
+     */
+    public int parseEpochDay(CharSequence text, ParsePosition pos) {
+        return parse(text, pos.getIndex(), text.length(), pos, true);
+    }
+
+    /**
+     * Parses a range of UTF-8 bytes to an ISO epoch day. The whole range must match.
+     *
+     * @param bytes  the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return the ISO epoch day, or {@link #INVALID}
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public int parseEpochDay(byte[] bytes, int offset, int length) {
+        checkRange(bytes.length, offset, length);
+        return parse(bytes, null, offset, offset + length, true);
+    }
+
+    /**
+     * Parses the remaining UTF-8 bytes of a buffer to an ISO epoch day. The bytes from the
+     * position to the limit must match; the position is not changed.
+     *
+     * @param buffer the buffer
+     * @return the ISO epoch day, or {@link #INVALID}
+     */
+    public int parseEpochDay(ByteBuffer buffer) {
+        return parse(buffer, true);
+    }
+
+    /**
+     * Parses the whole text to a packed Hijrah date.
+     *
+     * @param text the text
+     * @return the packed Hijrah date, see {@link HijrahChronology#pack(int, int, int)}, or
+     * {@link #INVALID}
+     */
+    public int parsePacked(CharSequence text) {
+        return parse(text, 0, text.length(), null, false);
+    }
+
+    /**
+     * Parses text starting at the index of {@code pos} to a packed Hijrah date, updating
+     * {@code pos} as {@link #parseEpochDay(CharSequence, ParsePosition)} does.
+     *
+     * @param text the text
+     * @param pos  the position to start from
+     * @return the packed Hijrah date, see {@link HijrahChronology#pack(int, int, int)}, or
+     * {@link #INVALID}
+     */
+    public int parsePacked(CharSequence text, ParsePosition pos) {
+        return parse(text, pos.getIndex(), text.length(), pos, false);
+    }
+
+    /**
+     * Parses a range of UTF-8 bytes to a packed Hijrah date. The whole range must match.
+     *
+     * @param bytes  the bytes
+     * @param offset the index of the first byte
+     * @param length the number of bytes
+     * @return the packed Hijrah date, see {@link HijrahChronology#pack(int, int, int)}, or
+     * {@link #INVALID}
+     * @throws IndexOutOfBoundsException if the range is outside the array
+     */
+    public int parsePacked(byte[] bytes, int offset, int length) {
+        checkRange(bytes.length, offset, length);
+        return parse(bytes, null, offset, offset + length, false);
+    }
+
+    /**
+     * Parses the remaining UTF-8 bytes of a buffer to a packed Hijrah date. The bytes from the
+     * position to the limit must match; the position is not changed.
+     *
+     * @param buffer the buffer
+     * @return the packed Hijrah date, see {@link HijrahChronology#pack(int, int, int)}, or
+     * {@link #INVALID}
+     */
+    public int parsePacked(ByteBuffer buffer) {
+        return parse(buffer, false);
+    }
+
+    @Override
+    public String toString() {
+        return "HijriDateParser[" + pattern + "]";
+    }
+
+    private int parse(CharSequence text, int start, int end, ParsePosition pos,
+                      boolean toEpochDay) {
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int yearIndex = start;
+        int monthIndex = start;
+        int dayIndex = start;
+        int i = start;
+        for (int e = 0; e < types.length; e++) {
+            if (types[e] == LITERAL) {
+                String literal = literals[e];
+                int n = literal.length();
+                if (end - i < n) {
+                    return fail(pos, i);
+                }
+                for (int k = 0; k < n; k++) {
+                    if (text.charAt(i + k) != literal.charAt(k)) {
+                        return fail(pos, i + k);
+                    }
+                }
+                i += n;
+                continue;
+            }
+            int fieldIndex = i;
+            int value = 0;
+            int digits = 0;
+            while (digits < maxWidths[e] && i < end) {
+                int digit = digit(text.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                value = value * 10 + digit;
+                digits++;
+                i++;
+            }
+            if (digits < minWidths[e]) {
+                return fail(pos, i);
+            }
+            switch (types[e]) {
+                case YEAR:
+                    year = value;
+                    yearIndex = fieldIndex;
+                    break;
+                case MONTH:
+                    month = value;
+                    monthIndex = fieldIndex;
+                    break;
+                default:
+                    day = value;
+                    dayIndex = fieldIndex;
+            }
+        }
+        if (pos == null && i != end) {
+            return INVALID;
+        }
+        int epochDay = chronology.tryToEpochDay(year, month - 1, day);
+        if (epochDay == INVALID) {
+            return fail(pos, invalidFieldIndex(year, month, yearIndex, monthIndex, dayIndex));
+        }
+        if (pos != null) {
+            pos.setIndex(i);
+        }
+        return toEpochDay ? epochDay : HijrahChronology.pack(year, month - 1, day);
+    }
+
+    private int parse(ByteBuffer buffer, boolean toEpochDay) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return parse(buffer.array(), null, offset + position, offset + limit, toEpochDay);
+        }
+        return parse(null, buffer, position, limit, toEpochDay);
+    }
+
+    /**
+     * Parses bytes from {@code array} if it is not {@code null}, otherwise from {@code buffer}
+     * using absolute reads.
+     */
+    private int parse(byte[] array, ByteBuffer buffer, int start, int end, boolean toEpochDay) {
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int i = start;
+        for (int e = 0; e < types.length; e++) {
+            if (types[e] == LITERAL) {
+                byte[] literal = literalBytes[e];
+                int n = literal.length;
+                if (end - i < n) {
+                    return INVALID;
+                }
+                for (int k = 0; k < n; k++) {
+                    if (byteAt(array, buffer, i + k) != literal[k]) {
+                        return INVALID;
+                    }
+                }
+                i += n;
+                continue;
+            }
+            int value = 0;
+            int digits = 0;
+            while (digits < maxWidths[e] && i < end) {
+                int b = byteAt(array, buffer, i) & 0xFF;
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    i++;
+                } else if ((b == 0xD9 || b == 0xDB) && i + 1 < end) {
+                    // UTF-8 of U+0660..U+0669 is D9 A0..A9, of U+06F0..U+06F9 is DB B0..B9
+                    int digit = (byteAt(array, buffer, i + 1) & 0xFF) - (b == 0xD9 ? 0xA0 : 0xB0);
+                    if (digit < 0 || digit > 9) {
+                        break;
+                    }
+                    value = value * 10 + digit;
+                    i += 2;
+                } else {
+                    break;
+                }
+                digits++;
+            }
+            if (digits < minWidths[e]) {
+                return INVALID;
+            }
+            switch (types[e]) {
+                case YEAR:
+                    year = value;
+                    break;
+                case MONTH:
+                    month = value;
+                    break;
+                default:
+                    day = value;
+            }
+        }
+        if (i != end) {
+            return INVALID;
+        }
+        int epochDay = chronology.tryToEpochDay(year, month - 1, day);
+        if (epochDay == INVALID || toEpochDay) {
+            return epochDay;
+        }
+        return HijrahChronology.pack(year, month - 1, day);
+    }
+
+    private int invalidFieldIndex(int year, int month, int yearIndex, int monthIndex,
+                                  int dayIndex) {
+        if (month < 1 || month > 12) {
+            return monthIndex;
+        }
+        return chronology.tryToEpochDay(year, month - 1, 1) == INVALID ? yearIndex : dayIndex;
+    }
+
+    private static int fail(ParsePosition pos, int errorIndex) {
+        if (pos != null) {
+            pos.setErrorIndex(errorIndex);
+        }
+        return INVALID;
+    }
+
+    private static byte byteAt(byte[] array, ByteBuffer buffer, int index) {
+        return array != null ? array[index] : buffer.get(index);
+    }
+
+    /**
+     * Returns the value of an ASCII, Arabic-Indic or Extended Arabic-Indic digit, or -1.
+     */
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= '\u0660' && c <= '\u0669') {
+            return c - '\u0660';
+        }
+        if (c >= '\u06F0' && c <= '\u06F9') {
+            return c - '\u06F0';
+        }
+        return -1;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+                    + ", array length: " + arrayLength);
+        }
+    }
+
+    /**
+     * Splits a pattern into runs of the same letter and literal texts, the latter prefixed with
+     * a single quote.
+     */
+    private static List<String> split(String pattern) {
+        List<String> elements = new ArrayList<>();
+        StringBuilder literal = new StringBuilder("'");
+        int length = pattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                int end = i + 1;
+                if (end < length && pattern.charAt(end) == '\'') {
+                    literal.append('\'');
+                    i = end + 1;
+                    continue;
+                }
+                while (true) {
+                    if (end >= length) {
+                        throw new IllegalArgumentException(
+                                "Unterminated quote in pattern: " + pattern);
+                    }
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < length && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end++));
+                }
+                i = end + 1;
+                continue;
+            }
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+            int count = 1;
+            while (i + count < length && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            if (literal.length() > 1) {
+                elements.add(literal.toString());
+                literal.setLength(1);
+            }
+            elements.add(pattern.substring(i, i + count));
+            i += count;
+        }
+        if (literal.length() > 1) {
+            elements.add(literal.toString());
+        }
+        return elements;
+    }
+}
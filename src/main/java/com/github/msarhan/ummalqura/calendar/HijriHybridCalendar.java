@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+/**
+ * An Umm Al-Qura calendar extended with the tabular Islamic calendar for the years without
+ * Umm Al-Qura data.
+ * <p>
+ * Years covered by the data of a {@link HijrahChronology} are computed from that data; years
+ * before and after it are computed by a {@link HijriTabularCalendar}, shifted so that the last
+ * tabular year before the data ends the day before the first year of the data starts, and the
+ * first tabular year after the data starts the day after it ends. The calendar is therefore
+ * continuous across both seams. {@link #getEngine(int)} and {@link #getEngineOfEpochDay(int)}
+ * report which engine answers for a year or a day; for a packed result, the engine is the one
+ * of its year.
+ * <p>
+ * The seams follow the chronology data when it is replaced.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriHybridCalendar {
+
+    /**
+     * The engines of a hybrid calendar.
+     */
+    public enum Engine {
+        /**
+         * The data of the {@link HijrahChronology}.
+         */
+        UMMALQURA,
+        /**
+         * The {@link HijriTabularCalendar}.
+         */
+        TABULAR
+    }
+
+    private final HijrahChronology chronology;
+    private final HijriTabularCalendar tabular;
+    private volatile Seams seams;
+
+    /**
+     * Creates a hybrid of {@link HijrahChronology#INSTANCE} and the
+     * {@link HijriTabularCalendar.LeapPattern#TYPE_II} tabular calendar.
+     */
+    public HijriHybridCalendar() {
+        this(HijrahChronology.INSTANCE,
+                new HijriTabularCalendar(HijriTabularCalendar.LeapPattern.TYPE_II));
+    }
+
+    /**
+     * Creates a hybrid calendar.
+     *
+     * @param chronology the chronology used for the years it has data for
+     * @param tabular    the calendar used for the other years
+     */
+    public HijriHybridCalendar(HijrahChronology chronology, HijriTabularCalendar tabular) {
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        if (tabular == null) {
+            throw new NullPointerException("tabular");
+        }
+        this.chronology = chronology;
+        this.tabular = tabular;
+    }
+
+    /**
+     * Returns the chronology used for the years it has data for.
+     *
+     * @return the chronology
+     */
+    public HijrahChronology getChronology() {
+        return chronology;
+    }
+
+    /**
+     * Returns the tabular calendar used for the other years.
+     *
+     * @return the tabular calendar
+     */
+    public HijriTabularCalendar getTabularCalendar() {
+        return tabular;
+    }
+
+    /**
+     * Returns the engine computing the dates of a year.
+     *
+     * @param year the Hijrah year
+     * @return the engine
+     */
+    public Engine getEngine(int year) {
+        Seams s = seams();
+        return year >= s.minYear && year <= s.maxYear ? Engine.UMMALQURA : Engine.TABULAR;
+    }
+
+    /**
+     * Returns the engine computing the date of an ISO epoch day.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the engine
+     */
+    public Engine getEngineOfEpochDay(int epochDay) {
+        Seams s = seams();
+        return epochDay >= s.minEpochDay && epochDay < s.maxEpochDay
+                ? Engine.UMMALQURA : Engine.TABULAR;
+    }
+
+    /**
+     * Returns the date of an ISO epoch day as a packed {@code int}.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the packed date, see {@link HijrahChronology#pack(int, int, int)}
+     * @throws DateTimeException if the date is out of the range of the tabular calendar
+     */
+    public int epochDayToPackedHijri(int epochDay) {
+        Seams s = seams();
+        if (epochDay < s.minEpochDay) {
+            return tabular.epochDayToPackedHijri(epochDay - s.shiftBefore);
+        }
+        if (epochDay >= s.maxEpochDay) {
+            return tabular.epochDayToPackedHijri(epochDay - s.shiftAfter);
+        }
+        return chronology.epochDayToPackedHijri(epochDay);
+    }
+
+    /**
+     * Returns the ISO epoch day of a date.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the date is invalid or out of the range of the tabular
+     *                           calendar
+     */
+    public int hijriToEpochDay(int year, int month, int day) {
+        Seams s = seams();
+        if (year < s.minYear) {
+            return tabular.hijriToEpochDay(year, month, day) + s.shiftBefore;
+        }
+        if (year > s.maxYear) {
+            return tabular.hijriToEpochDay(year, month, day) + s.shiftAfter;
+        }
+        return chronology.hijriToEpochDay(year, month, day);
+    }
+
+    /**
+     * Returns the ISO epoch day of the first day of a year.
+     *
+     * @param year the Hijrah year
+     * @return the ISO epoch day of 1 Muharram of the year, day 0 is 1970-01-01
+     * @throws DateTimeException if the year is out of the range of the tabular calendar
+     */
+    public int firstEpochDayOfYear(int year) {
+        Seams s = seams();
+        if (year < s.minYear) {
+            return tabular.firstEpochDayOfYear(year) + s.shiftBefore;
+        }
+        if (year > s.maxYear) {
+            return tabular.firstEpochDayOfYear(year) + s.shiftAfter;
+        }
+        return chronology.firstEpochDayOfYear(year);
+    }
+
+    /**
+     * Returns the length of a year.
+     *
+     * @param year the Hijrah year
+     * @return 355 if the year is leap, 354 otherwise
+     * @throws DateTimeException if the year is out of the range of the tabular calendar
+     */
+    public int lengthOfYear(int year) {
+        return getEngine(year) == Engine.UMMALQURA
+                ? chronology.lengthOfYear(year) : tabular.lengthOfYear(year);
+    }
+
+    /**
+     * Returns the length of a month.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @return 29 or 30
+     * @throws DateTimeException if the month is out of the range of the tabular calendar
+     */
+    public int lengthOfMonth(int year, int month) {
+        return getEngine(year) == Engine.UMMALQURA
+                ? chronology.lengthOfMonth(year, month) : tabular.lengthOfMonth(year, month);
+    }
+
+    @Override
+    public String toString() {
+        return "HijriHybridCalendar[" + chronology.getId() + ", " + tabular.getLeapPattern() + "]";
+    }
+
+    private Seams seams() {
+        Seams s = seams;
+        if (s == null || s.generation != chronology.getGeneration()) {
+            s = new Seams(chronology, tabular);
+            seams = s;
+        }
+        return s;
+    }
+
+    /**
+     * The range of the chronology data and the shifts of the tabular calendar before and after
+     * it, for one generation of the data.
+     */
+    private static final class Seams {
+
+        final long generation;
+        final int minYear;
+        final int maxYear;
+        final int minEpochDay;
+        final int maxEpochDay;
+        final int shiftBefore;
+        final int shiftAfter;
+
+        Seams(HijrahChronology chronology, HijriTabularCalendar tabular) {
+            // read the generation first so that a concurrent replacement is seen next time
+            generation = chronology.getGeneration();
+            minYear = chronology.getMinimumYear();
+            maxYear = chronology.getMaximumYear();
+            minEpochDay = chronology.firstEpochDayOfYear(minYear);
+            maxEpochDay = chronology.firstEpochDayOfYear(maxYear)
+                    + chronology.lengthOfYear(maxYear);
+            shiftBefore = minEpochDay - tabular.firstEpochDayOfYear(minYear);
+            shiftAfter = maxEpochDay - tabular.firstEpochDayOfYear(maxYear + 1);
+        }
+    }
+}
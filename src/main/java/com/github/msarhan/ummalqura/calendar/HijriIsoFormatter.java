@@ -0,0 +1,256 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.TimeZone;
+
+/**
+ * Writes ISO-like renderings of Umm Al-Qura dates, such as {@code 1445-09-01} or
+ * {@code 1445-09-01T13:45:30.250}, as ASCII bytes straight into a {@code byte[]} or
+ * {@link ByteBuffer}.
+ * <p>
+ * This is meant for logs and wire protocols that stamp many records: digits come from
+ * precomputed two-digit tables and no objects are created per call, unlike formatting to a
+ * {@link String} with {@link HijriDateFormatter} and encoding it afterwards. Years are written
+ * with four digits and months are 1-based.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriIsoFormatter {
+
+    /**
+     * The number of bytes written for a date, {@code yyyy-MM-dd}.
+     */
+    public static final int DATE_LENGTH = 10;
+
+    /**
+     * The number of bytes written for a date and time, {@code yyyy-MM-ddTHH:mm:ss.SSS}.
+     */
+    public static final int DATE_TIME_LENGTH = 23;
+
+    private static final int MILLIS_PER_DAY = 86400000;
+
+    /**
+     * The ASCII tens and ones digits of 0 to 99.
+     */
+    private static final byte[] TENS = new byte[100];
+    private static final byte[] ONES = new byte[100];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TENS[i] = (byte) ('0' + i / 10);
+            ONES[i] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final HijrahChronology chronology;
+
+    /**
+     * Creates a formatter for {@link HijrahChronology#INSTANCE}.
+     */
+    public HijriIsoFormatter() {
+        this(HijrahChronology.INSTANCE);
+    }
+
+    /**
+     * Creates a formatter.
+     *
+     * @param chronology the chronology used to find Hijrah dates
+     */
+    public HijriIsoFormatter(HijrahChronology chronology) {
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        this.chronology = chronology;
+    }
+
+    /**
+     * Writes the date of an ISO epoch day.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @param dest     the array to write to
+     * @param offset   the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws DateTimeException         if the date is out of the supported range
+     * @throws IndexOutOfBoundsException if fewer than {@link #DATE_LENGTH} bytes are available
+     */
+    public int formatDate(int epochDay, byte[] dest, int offset) {
+        checkRange(dest.length, offset, DATE_LENGTH);
+        writeDate(chronology.epochDayToPackedHijri(epochDay), dest, null, offset);
+        return offset + DATE_LENGTH;
+    }
+
+    /**
+     * Writes the date of an instant as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @param dest        the array to write to
+     * @param offset      the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws DateTimeException         if the date is out of the supported range
+     * @throws IndexOutOfBoundsException if fewer than {@link #DATE_LENGTH} bytes are available
+     */
+    public int formatDate(long epochMillis, TimeZone zone, byte[] dest, int offset) {
+        checkRange(dest.length, offset, DATE_LENGTH);
+        writeDate(chronology.epochMillisToPackedHijri(epochMillis, zone), dest, null, offset);
+        return offset + DATE_LENGTH;
+    }
+
+    /**
+     * Writes the date and time of an instant as seen in the given time zone.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date and time
+     * @param dest        the array to write to
+     * @param offset      the index of the first byte to write
+     * @return the index following the last byte written
+     * @throws DateTimeException         if the date is out of the supported range
+     * @throws IndexOutOfBoundsException if fewer than {@link #DATE_TIME_LENGTH} bytes are
+     *                                   available
+     */
+    public int formatDateTime(long epochMillis, TimeZone zone, byte[] dest, int offset) {
+        checkRange(dest.length, offset, DATE_TIME_LENGTH);
+        writeDateTime(epochMillis, zone, dest, null, offset);
+        return offset + DATE_TIME_LENGTH;
+    }
+
+    /**
+     * Writes the date of an instant as seen in the given time zone at the position of a buffer,
+     * and advances the position.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date
+     * @param dest        the buffer to write to
+     * @throws DateTimeException       if the date is out of the supported range
+     * @throws BufferOverflowException if fewer than {@link #DATE_LENGTH} bytes remain; nothing is
+     *                                 written
+     */
+    public void formatDate(long epochMillis, TimeZone zone, ByteBuffer dest) {
+        int position = reserve(dest, DATE_LENGTH);
+        int packedDate = chronology.epochMillisToPackedHijri(epochMillis, zone);
+        if (dest.hasArray()) {
+            writeDate(packedDate, dest.array(), null, dest.arrayOffset() + position);
+        } else {
+            writeDate(packedDate, null, dest, position);
+        }
+        dest.position(position + DATE_LENGTH);
+    }
+
+    /**
+     * Writes the date and time of an instant as seen in the given time zone at the position of a
+     * buffer, and advances the position.
+     *
+     * @param epochMillis the milliseconds since 1970-01-01T00:00:00Z
+     * @param zone        the time zone used to find the local date and time
+     * @param dest        the buffer to write to
+     * @throws DateTimeException       if the date is out of the supported range
+     * @throws BufferOverflowException if fewer than {@link #DATE_TIME_LENGTH} bytes remain;
+     *                                 nothing is written
+     */
+    public void formatDateTime(long epochMillis, TimeZone zone, ByteBuffer dest) {
+        int position = reserve(dest, DATE_TIME_LENGTH);
+        if (dest.hasArray()) {
+            writeDateTime(epochMillis, zone, dest.array(), null, dest.arrayOffset() + position);
+        } else {
+            writeDateTime(epochMillis, zone, null, dest, position);
+        }
+        dest.position(position + DATE_TIME_LENGTH);
+    }
+
+    /**
+     * Writes {@code yyyy-MM-ddTHH:mm:ss.SSS} to {@code array} if it is not {@code null},
+     * otherwise to {@code buffer} using absolute writes.
+     */
+    private void writeDateTime(long epochMillis, TimeZone zone, byte[] array, ByteBuffer buffer,
+                               int index) {
+        long localMillis = epochMillis + zone.getOffset(epochMillis);
+        int millisOfDay = (int) (localMillis % MILLIS_PER_DAY);
+        if (millisOfDay < 0) {
+            millisOfDay += MILLIS_PER_DAY; // floor for instants before 1970
+        }
+        // the date is resolved from the same offset as the time of day
+        int epochDay = (int) ((localMillis - millisOfDay) / MILLIS_PER_DAY);
+        writeDate(chronology.epochDayToPackedHijri(epochDay), array, buffer, index);
+
+        int millis = millisOfDay % 1000;
+        int seconds = millisOfDay / 1000;
+        put(array, buffer, index + 10, (byte) 'T');
+        putTwoDigits(array, buffer, index + 11, seconds / 3600);
+        put(array, buffer, index + 13, (byte) ':');
+        putTwoDigits(array, buffer, index + 14, seconds / 60 % 60);
+        put(array, buffer, index + 16, (byte) ':');
+        putTwoDigits(array, buffer, index + 17, seconds % 60);
+        put(array, buffer, index + 19, (byte) '.');
+        put(array, buffer, index + 20, ONES[millis / 100]);
+        putTwoDigits(array, buffer, index + 21, millis % 100);
+    }
+
+    /**
+     * Writes {@code yyyy-MM-dd} to {@code array} if it is not {@code null}, otherwise to
+     * {@code buffer} using absolute writes.
+     */
+    private static void writeDate(int packedDate, byte[] array, ByteBuffer buffer, int index) {
+        int year = HijrahChronology.packedYear(packedDate);
+        putTwoDigits(array, buffer, index, year / 100 % 100);
+        putTwoDigits(array, buffer, index + 2, year % 100);
+        put(array, buffer, index + 4, (byte) '-');
+        putTwoDigits(array, buffer, index + 5, HijrahChronology.packedMonth(packedDate) + 1);
+        put(array, buffer, index + 7, (byte) '-');
+        putTwoDigits(array, buffer, index + 8, HijrahChronology.packedDay(packedDate));
+    }
+
+    private static void putTwoDigits(byte[] array, ByteBuffer buffer, int index, int value) {
+        put(array, buffer, index, TENS[value]);
+        put(array, buffer, index + 1, ONES[value]);
+    }
+
+    private static void put(byte[] array, ByteBuffer buffer, int index, byte b) {
+        if (array != null) {
+            array[index] = b;
+        } else {
+            buffer.put(index, b);
+        }
+    }
+
+    private static int reserve(ByteBuffer dest, int length) {
+        if (dest.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        return dest.position();
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length
+                    + ", array length: " + arrayLength);
+        }
+    }
+}
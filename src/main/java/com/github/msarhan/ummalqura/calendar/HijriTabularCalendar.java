@@ -0,0 +1,258 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+/**
+ * The arithmetic, or tabular, Islamic calendar.
+ * <p>
+ * Months alternate between 30 and 29 days, starting with 30, and the last month has 30 days in
+ * leap years. Years repeat in cycles of 30 years, 11 of which are leap years as selected by a
+ * {@link LeapPattern}. Dates are computed in constant time from closed formulas, without
+ * tables, for the years {@value #MIN_YEAR} to {@value #MAX_YEAR}. 1 Muharram 1 AH is Friday,
+ * 16 July 622 of the Julian calendar, the so-called civil epoch.
+ * <p>
+ * This calendar approximates the Umm Al-Qura calendar to within a day or two. It is used by
+ * {@link HijriHybridCalendar} for the years not covered by Umm Al-Qura data.
+ * <p>
+ * Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class HijriTabularCalendar {
+
+    /**
+     * The first supported year.
+     */
+    public static final int MIN_YEAR = 1;
+
+    /**
+     * The last supported year.
+     */
+    public static final int MAX_YEAR = 9999;
+
+    /**
+     * The ISO epoch day of 1 Muharram 1 AH, Julian 622-07-16.
+     */
+    static final int EPOCH_DAY_OF_EPOCH = -492148;
+
+    private static final int YEARS_PER_CYCLE = 30;
+    private static final int DAYS_PER_CYCLE = 30 * 354 + 11;
+
+    private final LeapPattern leapPattern;
+    /**
+     * Bit {@code k} is set when year {@code k + 1} of a cycle is a leap year.
+     */
+    private final int leapYears;
+
+    /**
+     * Creates a calendar.
+     *
+     * @param leapPattern the leap years of the 30 year cycle
+     */
+    public HijriTabularCalendar(LeapPattern leapPattern) {
+        if (leapPattern == null) {
+            throw new NullPointerException("leapPattern");
+        }
+        this.leapPattern = leapPattern;
+        this.leapYears = leapPattern.leapYears;
+    }
+
+    /**
+     * Returns the leap years of the 30 year cycle of this calendar.
+     *
+     * @return the leap pattern
+     */
+    public LeapPattern getLeapPattern() {
+        return leapPattern;
+    }
+
+    /**
+     * Checks whether a year is a leap year, of 355 days.
+     *
+     * @param year the Hijrah year
+     * @return true if the year is a leap year
+     * @throws DateTimeException if the year is out of the supported range
+     */
+    public boolean isLeapYear(int year) {
+        checkYear(year);
+        return ((leapYears >>> ((year - 1) % YEARS_PER_CYCLE)) & 1) != 0;
+    }
+
+    /**
+     * Returns the length of a year.
+     *
+     * @param year the Hijrah year
+     * @return 355 if the year is leap, 354 otherwise
+     * @throws DateTimeException if the year is out of the supported range
+     */
+    public int lengthOfYear(int year) {
+        return isLeapYear(year) ? 355 : 354;
+    }
+
+    /**
+     * Returns the length of a month.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @return 29 or 30
+     * @throws DateTimeException if the year or month is out of the supported range
+     */
+    public int lengthOfMonth(int year, int month) {
+        checkMonth(month);
+        if (month == UmmalquraCalendar.THUL_HIJJAH) {
+            return isLeapYear(year) ? 30 : 29;
+        }
+        checkYear(year);
+        return 30 - (month & 1);
+    }
+
+    /**
+     * Returns the ISO epoch day of the first day of a year.
+     *
+     * @param year the Hijrah year
+     * @return the ISO epoch day of 1 Muharram of the year, day 0 is 1970-01-01
+     * @throws DateTimeException if the year is out of the supported range
+     */
+    public int firstEpochDayOfYear(int year) {
+        checkYear(year);
+        int cycles = (year - 1) / YEARS_PER_CYCLE;
+        return EPOCH_DAY_OF_EPOCH + cycles * DAYS_PER_CYCLE
+                + daysBeforeYearOfCycle((year - 1) - cycles * YEARS_PER_CYCLE);
+    }
+
+    /**
+     * Returns the ISO epoch day of a date.
+     *
+     * @param year  the Hijrah year
+     * @param month the Hijrah month, 0-based
+     * @param day   the day of month, 1-based
+     * @return the ISO epoch day, day 0 is 1970-01-01
+     * @throws DateTimeException if the date is invalid or out of the supported range
+     */
+    public int hijriToEpochDay(int year, int month, int day) {
+        if (day < 1 || day > lengthOfMonth(year, month)) {
+            throw new DateTimeException("Invalid Hijrah day of month: " + day);
+        }
+        return firstEpochDayOfYear(year) + daysBeforeMonth(month) + (day - 1);
+    }
+
+    /**
+     * Returns the date of an ISO epoch day as a packed {@code int}.
+     *
+     * @param epochDay the ISO epoch day, day 0 is 1970-01-01
+     * @return the packed date, see {@link HijrahChronology#pack(int, int, int)}
+     * @throws DateTimeException if the date is out of the supported range
+     */
+    public int epochDayToPackedHijri(int epochDay) {
+        long days = (long) epochDay - EPOCH_DAY_OF_EPOCH;
+        if (days < 0 || days >= (long) MAX_YEAR / YEARS_PER_CYCLE * DAYS_PER_CYCLE
+                + daysBeforeYearOfCycle(MAX_YEAR % YEARS_PER_CYCLE)) {
+            throw new DateTimeException("Hijrah date out of range");
+        }
+        int cycles = (int) (days / DAYS_PER_CYCLE);
+        int dayOfCycle = (int) (days - (long) cycles * DAYS_PER_CYCLE);
+        // a year has 354 or 355 days, so this is the year of the cycle or the one before
+        int yearOfCycle = dayOfCycle / 355;
+        if (daysBeforeYearOfCycle(yearOfCycle + 1) <= dayOfCycle) {
+            yearOfCycle++;
+        }
+        int dayOfYear = dayOfCycle - daysBeforeYearOfCycle(yearOfCycle);
+        // a month has 29.5 days on average, so this is the month or one of its neighbours
+        int month = Math.min(UmmalquraCalendar.THUL_HIJJAH, dayOfYear * 2 / 59);
+        if (daysBeforeMonth(month) > dayOfYear) {
+            month--;
+        } else if (month < UmmalquraCalendar.THUL_HIJJAH
+                && daysBeforeMonth(month + 1) <= dayOfYear) {
+            month++;
+        }
+        return HijrahChronology.pack(cycles * YEARS_PER_CYCLE + yearOfCycle + 1, month,
+                dayOfYear - daysBeforeMonth(month) + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "HijriTabularCalendar[" + leapPattern + "]";
+    }
+
+    /**
+     * Returns the number of days in the years of a cycle before the given 0-based year.
+     */
+    private int daysBeforeYearOfCycle(int yearOfCycle) {
+        return yearOfCycle * 354 + Integer.bitCount(leapYears & ((1 << yearOfCycle) - 1));
+    }
+
+    /**
+     * Returns the number of days in the year before the given 0-based month.
+     */
+    private static int daysBeforeMonth(int month) {
+        return month * 29 + ((month + 1) >> 1);
+    }
+
+    private static void checkYear(int year) {
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            throw new DateTimeException("Invalid Hijrah year: " + year);
+        }
+    }
+
+    private static void checkMonth(int month) {
+        if (month < 0 || month > 11) {
+            throw new DateTimeException("Invalid Hijrah month: " + month);
+        }
+    }
+
+    /**
+     * The leap years of the 30 year cycle, as tabulated in the literature on the arithmetic
+     * Islamic calendar.
+     */
+    public enum LeapPattern {
+        /**
+         * Leap years 2, 5, 7, 10, 13, 15, 18, 21, 24, 26 and 29.
+         */
+        TYPE_I(2, 5, 7, 10, 13, 15, 18, 21, 24, 26, 29),
+        /**
+         * Leap years 2, 5, 7, 10, 13, 16, 18, 21, 24, 26 and 29; the most widely used pattern.
+         */
+        TYPE_II(2, 5, 7, 10, 13, 16, 18, 21, 24, 26, 29),
+        /**
+         * Leap years 2, 5, 8, 10, 13, 16, 19, 21, 24, 27 and 29, the Fatimid pattern.
+         */
+        TYPE_III(2, 5, 8, 10, 13, 16, 19, 21, 24, 27, 29),
+        /**
+         * Leap years 2, 5, 8, 11, 13, 16, 19, 21, 24, 27 and 30, attributed to Habash al-Hasib.
+         */
+        TYPE_IV(2, 5, 8, 11, 13, 16, 19, 21, 24, 27, 30);
+
+        final int leapYears;
+
+        LeapPattern(int... years) {
+            int mask = 0;
+            for (int year : years) {
+                mask |= 1 << (year - 1);
+            }
+            leapYears = mask;
+        }
+    }
+}
@@ -24,6 +24,8 @@
 
 package com.github.msarhan.ummalqura.calendar;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.*;
 
 /**
@@ -103,6 +105,23 @@ public class UmmalquraCalendar extends GregorianCalendar {
      */
     public final static int THUL_HIJJAH = 11;
 
+    /**
+     * Serialization version, the value computed for the releases without a
+     * {@link #chronology} field so that their serialized calendars can still be read.
+     */
+    private static final long serialVersionUID = -5973047504984482418L;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /**
+     * The length of the shortest month, a day of month up to this value exists in every month.
+     */
+    private static final int MIN_MONTH_LENGTH = 29;
+    /**
+     * The smallest number of weeks of a year: a year of 354 days starting right after the first
+     * day of week when the first week must be complete has 50 weeks.
+     */
+    private static final int LEAST_MAX_WEEK_OF_YEAR = 50;
+
     /**
      * The calendar field values for the currently set time for this calendar. This is an array of
      * <code>FIELD_COUNT</code> integers, with index values <code>ERA</code> through
@@ -112,6 +131,29 @@ public class UmmalquraCalendar extends GregorianCalendar {
      */
     protected int[] hFields;
 
+    /**
+     * The Hijrah calendar variant used by this calendar, {@code null} while the super class is
+     * being constructed; calendars serialized before this field existed use
+     * {@link HijrahChronology#INSTANCE}.
+     *
+     * @serial
+     */
+    private HijrahChronology chronology;
+
+    /**
+     * The local epoch day last converted by {@link #computeFields()}, valid when
+     * {@link #cachedPackedDate} is not 0.
+     */
+    private transient int cachedEpochDay;
+    /**
+     * The packed Hijrah date of {@link #cachedEpochDay}, or 0 if nothing is cached.
+     */
+    private transient int cachedPackedDate;
+    /**
+     * The generation of the chronology data {@link #cachedPackedDate} was computed with.
+     */
+    private transient long cachedGeneration;
+
     /**
      * Constructs a default <code>UmmalquraCalendar</code> using the current time in the default
      * time zone with the default locale.
@@ -141,6 +183,26 @@ public class UmmalquraCalendar extends GregorianCalendar {
         super(zone, aLocale);
     }
 
+    /**
+     * Constructs a <code>UmmalquraCalendar</code> based on the current time in the given time zone
+     * with the given locale, using the given Hijrah calendar variant.
+     *
+     * @param chronology the Hijrah calendar variant, e.g. one loaded by
+     *                   {@link HijrahChronology#load(java.io.InputStream)}.
+     * @param zone       the given time zone.
+     * @param aLocale    the given locale.
+     */
+    public UmmalquraCalendar(HijrahChronology chronology, TimeZone zone, Locale aLocale) {
+        super(zone, aLocale);
+        if (chronology == null) {
+            throw new NullPointerException("chronology");
+        }
+        this.chronology = chronology;
+        // The super constructor computed the fields with the default variant
+        cachedPackedDate = 0;
+        computeFields();
+    }
+
     /**
      * Constructs a <code>UmmalquraCalendar</code> with the given date set in the default time zone
      * with the default locale.
@@ -190,12 +252,19 @@ public class UmmalquraCalendar extends GregorianCalendar {
     public UmmalquraCalendar(int year, int month, int dayOfMonth, int hourOfDay,
                              int minute, int second) {
 
-        set(YEAR, year);
-        set(MONTH, month);
-        set(DAY_OF_MONTH, dayOfMonth);
         set(HOUR_OF_DAY, hourOfDay);
         set(MINUTE, minute);
         set(SECOND, second);
+        setHijriDate(year, month, dayOfMonth);
+    }
+
+    /**
+     * Returns the Hijrah calendar variant used by this calendar.
+     *
+     * @return the chronology, {@link HijrahChronology#INSTANCE} unless another variant was given
+     */
+    public HijrahChronology getChronology() {
+        return chronology != null ? chronology : HijrahChronology.INSTANCE;
     }
 
     /**
@@ -207,7 +276,7 @@ public class UmmalquraCalendar extends GregorianCalendar {
      * @return the length of the month in days
      */
     public static int lengthOfMonth(int year, int month) {
-        return HijrahChronology.getDaysInMonth(year, month + 1);
+        return HijrahChronology.INSTANCE.lengthOfMonth(year, month);
     }
 
     /**
@@ -218,23 +287,37 @@ public class UmmalquraCalendar extends GregorianCalendar {
      * @return 355 if the year is leap, 354 otherwise
      */
     public static int lengthOfYear(int year) {
-        int total = 0;
-        for (int m = MUHARRAM; m <= THUL_HIJJAH; m++) {
-            total += lengthOfMonth(year, m);
-        }
-
-        return total;
+        return HijrahChronology.INSTANCE.lengthOfYear(year);
     }
 
     @Override
     public int get(int field) {
-        if (field == YEAR || field == MONTH || field == DAY_OF_MONTH) {
+        if (isHijrahField(field)) {
+            complete();
             return hFields[field];
         }
 
         return super.get(field);
     }
 
+    /**
+     * Returns whether the value of a field in {@link #hFields} follows the Ummalqura calendar.
+     */
+    private static boolean isHijrahField(int field) {
+        switch (field) {
+            case YEAR:
+            case MONTH:
+            case DAY_OF_MONTH:
+            case DAY_OF_YEAR:
+            case WEEK_OF_YEAR:
+            case WEEK_OF_MONTH:
+            case DAY_OF_WEEK_IN_MONTH:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private boolean isSetYear = false;
     private boolean isSetMonth = false;
     private boolean isSetDayOfMonth = false;
@@ -242,7 +325,8 @@ public class UmmalquraCalendar extends GregorianCalendar {
     @Override
     public void set(int field, int value) {
         if (field == YEAR || field == MONTH || field == DAY_OF_MONTH) {
-            int[] hDateInfo = HijrahChronology.toHijri(getTime());
+            HijrahChronology chronology = getChronology();
+            int[] hDateInfo = chronology.getHijrahDateInfo(getTimeInMillis(), getTimeZone());
             if (field == YEAR) {
                 hDateInfo[0] = value;
                 isSetYear = true;
@@ -256,7 +340,7 @@ public class UmmalquraCalendar extends GregorianCalendar {
 
             adjustFields(hDateInfo);
 
-            int[] gDateInfo = HijrahChronology.toGregorian(hDateInfo[0], hDateInfo[1],
+            int[] gDateInfo = chronology.getGregorianDateInfo(hDateInfo[0], hDateInfo[1],
                     hDateInfo[2]);
 
             super.set(YEAR, gDateInfo[0]);
@@ -264,14 +348,269 @@ public class UmmalquraCalendar extends GregorianCalendar {
             super.set(DAY_OF_MONTH, gDateInfo[2]);
 
             complete();
+        } else if (isWeekField(field)) {
+            // Keep the day of week and move by whole weeks to the requested Hijrah week
+            int epochDay = getEpochDay();
+            setEpochDay(epochDay + (value - (long) hFields[field]) * 7);
         } else {
             super.set(field, value);
         }
     }
 
+    /**
+     * Returns whether a field counts weeks in the Hijrah year or month.
+     */
+    private static boolean isWeekField(int field) {
+        return field == WEEK_OF_YEAR || field == WEEK_OF_MONTH || field == DAY_OF_WEEK_IN_MONTH;
+    }
+
+    /**
+     * Sets the values for the calendar fields <code>YEAR</code>, <code>MONTH</code>, and
+     * <code>DAY_OF_MONTH</code> at once. <p> Unlike calling {@link #set(int, int)} for each field,
+     * the date is validated and converted to the Gregorian calendar only once, and no intermediate
+     * date is computed. Other calendar fields are retained.
+     *
+     * @param year       the value used to set the <code>YEAR</code> calendar field.
+     * @param month      the value used to set the <code>MONTH</code> calendar field. Month value is
+     *                   0-based. e.g., 0 for Muharram.
+     * @param dayOfMonth the value used to set the <code>DAY_OF_MONTH</code> calendar field.
+     * @throws DateTimeException if the date is invalid or out of the supported range
+     */
+    public void setHijriDate(int year, int month, int dayOfMonth) {
+        int epochDay = getChronology().hijriToEpochDay(year, month, dayOfMonth);
+        isSetYear = true;
+        isSetMonth = true;
+        isSetDayOfMonth = true;
+
+        setEpochDay(epochDay);
+    }
+
+    /**
+     * Sets the Gregorian date fields to the given local epoch day, keeping the time of day, and
+     * recomputes the calendar.
+     */
+    private void setEpochDay(long epochDay) {
+        int gDate = HijrahChronology.epochDayToPackedIso(epochDay);
+        super.set(YEAR, HijrahChronology.packedYear(gDate));
+        super.set(MONTH, HijrahChronology.packedMonth(gDate));
+        super.set(DAY_OF_MONTH, HijrahChronology.packedDay(gDate));
+
+        complete();
+    }
+
+    /**
+     * Sets the Hijrah date, clamping the day of month to the length of the month, e.g. the 30th
+     * becomes the 29th.
+     */
+    private void setHijriDateClamped(int year, int month, int dayOfMonth) {
+        HijrahChronology chronology = getChronology();
+        int monthLength = chronology.lengthOfMonth(year, month);
+        setEpochDay(chronology.hijriToEpochDay(year, month, Math.min(dayOfMonth, monthLength)));
+    }
+
+    /**
+     * Adds the given amount to a calendar field, following the Ummalqura calendar for the
+     * <code>YEAR</code>, <code>MONTH</code>, <code>DAY_OF_MONTH</code> and
+     * <code>DAY_OF_YEAR</code> fields. <p> Adding years or months keeps the day of month unless the
+     * resulting month is shorter, e.g. adding one month to Ramadan 30 gives Shawwal 29 when
+     * Shawwal has 29 days. Adding to <code>WEEK_OF_YEAR</code>, <code>WEEK_OF_MONTH</code> or
+     * <code>DAY_OF_WEEK_IN_MONTH</code> adds whole weeks. Other fields are added as by
+     * {@link GregorianCalendar#add(int, int)}.
+     *
+     * @param field  the calendar field.
+     * @param amount the amount of date or time to be added to the field.
+     * @throws DateTimeException if the result is out of the supported range
+     */
+    @Override
+    public void add(int field, int amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        switch (field) {
+            case YEAR:
+                complete();
+                setHijriDateClamped(checkedYear(hFields[YEAR] + (long) amount), hFields[MONTH],
+                        hFields[DAY_OF_MONTH]);
+                break;
+            case MONTH:
+                complete();
+                long epochMonth = hFields[YEAR] * 12L + hFields[MONTH] + amount;
+                setHijriDateClamped(checkedYear(floorDiv(epochMonth, 12)),
+                        (int) floorMod(epochMonth, 12), hFields[DAY_OF_MONTH]);
+                break;
+            case DAY_OF_MONTH:
+            case DAY_OF_YEAR:
+                complete();
+                long day = hFields[DAY_OF_MONTH] + (long) amount;
+                if (day >= 1 && day <= MIN_MONTH_LENGTH && cachedPackedDate
+                        == HijrahChronology.pack(hFields[YEAR], hFields[MONTH], hFields[DAY_OF_MONTH])) {
+                    // Same Hijrah month, every month has at least 29 days: no table lookup
+                    cachedEpochDay += amount;
+                    cachedPackedDate += amount;
+                }
+                addDays(amount);
+                break;
+            case WEEK_OF_YEAR:
+            case WEEK_OF_MONTH:
+            case DAY_OF_WEEK_IN_MONTH:
+                addDays(amount * 7L);
+                break;
+            default:
+                super.add(field, amount);
+        }
+    }
+
+    /**
+     * Moves the time by whole days keeping the wall clock time, without resolving the calendar
+     * fields as {@link GregorianCalendar#add(int, int)} does. When the zone offset differs on the
+     * target day the difference is compensated as long as the date stays the same, which gives the
+     * same instant as the super class also within daylight saving gaps and overlaps.
+     */
+    private void addDays(long amount) {
+        TimeZone zone = getTimeZone();
+        long millis = getTimeInMillis();
+        int offset = zone.getOffset(millis);
+        long localMillis = millis + offset + amount * MILLIS_PER_DAY;
+        long result = localMillis - offset;
+        int offsetChange = offset - zone.getOffset(result);
+        if (offsetChange != 0) {
+            long adjusted = result + offsetChange;
+            if (floorDiv(adjusted + zone.getOffset(adjusted), MILLIS_PER_DAY)
+                    == floorDiv(localMillis, MILLIS_PER_DAY)) {
+                result = adjusted;
+            }
+        }
+        setTimeInMillis(result);
+    }
+
+    /**
+     * Adds the given amount to a calendar field without changing larger fields, following the
+     * Ummalqura calendar for the <code>YEAR</code>, <code>MONTH</code>, <code>DAY_OF_MONTH</code>
+     * and <code>DAY_OF_YEAR</code> fields. <p> Rolling the month keeps the year and clamps the day
+     * of month to the length of the resulting month; rolling the day of month or day of year wraps
+     * within the month or year; rolling the year wraps within the supported years. <p> Rolling
+     * <code>WEEK_OF_YEAR</code> or <code>DAY_OF_WEEK_IN_MONTH</code> keeps the day of week and wraps
+     * within the days of the Hijrah year or month falling on it. Rolling <code>WEEK_OF_MONTH</code>
+     * wraps within the weeks of the Hijrah month and moves to the first or last day of the month
+     * when the day of week falls outside it. Rolling <code>DAY_OF_WEEK</code> wraps within the
+     * week. Other fields are rolled as by {@link GregorianCalendar#roll(int, int)}.
+     *
+     * @param field  the calendar field.
+     * @param amount the signed amount to add to <code>field</code>.
+     * @throws DateTimeException if the result is out of the supported range
+     */
+    @Override
+    public void roll(int field, int amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        HijrahChronology chronology = getChronology();
+        switch (field) {
+            case YEAR: {
+                complete();
+                int minYear = chronology.getMinimumYear();
+                int years = chronology.getMaximumYear() - minYear + 1;
+                int year = minYear + (int) floorMod(hFields[YEAR] - minYear + (long) amount, years);
+                setHijriDateClamped(year, hFields[MONTH], hFields[DAY_OF_MONTH]);
+                break;
+            }
+            case MONTH: {
+                complete();
+                int month = (int) floorMod(hFields[MONTH] + (long) amount, 12);
+                setHijriDateClamped(hFields[YEAR], month, hFields[DAY_OF_MONTH]);
+                break;
+            }
+            case DAY_OF_MONTH: {
+                complete();
+                int year = hFields[YEAR];
+                int month = hFields[MONTH];
+                int monthLength = chronology.getMonthLength(year, month + 1);
+                int day = 1 + (int) floorMod(hFields[DAY_OF_MONTH] - 1 + (long) amount, monthLength);
+                setEpochDay(chronology.hijriToEpochDay(year, month, day));
+                break;
+            }
+            case DAY_OF_YEAR: {
+                complete();
+                int year = hFields[YEAR];
+                int yearLength = chronology.getYearLength(year);
+                int dayOfYear = chronology.getDayOfYear(year, hFields[MONTH] + 1) + hFields[DAY_OF_MONTH];
+                long yearStart = chronology.hijriToEpochDay(year, MUHARRAM, 1);
+                setEpochDay(yearStart + floorMod(dayOfYear - 1 + (long) amount, yearLength));
+                break;
+            }
+            case WEEK_OF_YEAR: {
+                int epochDay = getEpochDay();
+                int dayOfYear = hFields[DAY_OF_YEAR];
+                setEpochDay(epochDay + rollSameDayOfWeek(dayOfYear, lengthOfYear(), amount));
+                break;
+            }
+            case DAY_OF_WEEK_IN_MONTH: {
+                int epochDay = getEpochDay();
+                int dayOfMonth = hFields[DAY_OF_MONTH];
+                setEpochDay(epochDay + rollSameDayOfWeek(dayOfMonth, lengthOfMonth(), amount));
+                break;
+            }
+            case WEEK_OF_MONTH: {
+                int epochDay = getEpochDay();
+                int monthStart = epochDay - hFields[DAY_OF_MONTH] + 1;
+                int monthEnd = monthStart + lengthOfMonth() - 1;
+                long weekStart = firstWeekStart(monthStart);
+                int weeks = getActualMaximum(WEEK_OF_MONTH);
+                // The current week is 0 when the month starts before its first week
+                long week = floorMod(hFields[WEEK_OF_MONTH] - 1 + (long) amount, weeks);
+                long day = weekStart + week * 7 + floorMod(epochDay - weekStart, 7);
+                setEpochDay(Math.min(Math.max(day, monthStart), monthEnd));
+                break;
+            }
+            case DAY_OF_WEEK: {
+                int epochDay = getEpochDay();
+                long weekStart = epochDay - floorMod(epochDay + 4 + 1 - getFirstDayOfWeek(), 7);
+                setEpochDay(weekStart + floorMod(epochDay - weekStart + (long) amount, 7));
+                break;
+            }
+            default:
+                super.roll(field, amount);
+        }
+    }
+
+    /**
+     * Returns the number of days to move a day of a period to roll it by whole weeks within the
+     * days of the period falling on the same day of week.
+     *
+     * @param day    the day of the period, 1-based
+     * @param length the length of the period in days
+     * @param amount the signed number of weeks to roll
+     * @return the number of days to add, a multiple of 7
+     */
+    private static long rollSameDayOfWeek(int day, int length, int amount) {
+        int first = (day - 1) % 7;
+        int count = (length - 1 - first) / 7 + 1;
+        int index = (day - 1) / 7;
+        return (floorMod(index + (long) amount, count) - index) * 7;
+    }
+
+    private static int checkedYear(long year) {
+        if (year < 1 || year > Integer.MAX_VALUE) {
+            throw new DateTimeException("Invalid Hijrah year: " + year);
+        }
+        return (int) year;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y < 0) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        long r = x % y;
+        return r < 0 ? r + y : r;
+    }
+
     private void adjustFields(int[] hDateInfo) {
         if(hDateInfo[2] == 30){
-            if(HijrahChronology.INSTANCE.getMonthLength(hDateInfo[0], hDateInfo[1]+1) < 30) {
+            if(getChronology().getMonthLength(hDateInfo[0], hDateInfo[1]+1) < 30) {
                 if(!isSetMonth){
                     hDateInfo[1] = 0;
                 }
@@ -289,7 +628,7 @@ public class UmmalquraCalendar extends GregorianCalendar {
      * @return the length of the month in days
      */
     public int lengthOfMonth() {
-        return lengthOfMonth(get(YEAR), get(MONTH));
+        return getChronology().lengthOfMonth(get(YEAR), get(MONTH));
     }
 
     /**
@@ -299,7 +638,7 @@ public class UmmalquraCalendar extends GregorianCalendar {
      * @return 355 if the year is leap, 354 otherwise
      */
     public int lengthOfYear() {
-        return lengthOfYear(get(YEAR));
+        return getChronology().lengthOfYear(get(YEAR));
     }
 
     /**
@@ -330,7 +669,7 @@ public class UmmalquraCalendar extends GregorianCalendar {
     public String getDisplayName(int field, int style, Locale locale) {
 
         if (field == MONTH) {
-            UmmalquraDateFormatSymbols symbols = new UmmalquraDateFormatSymbols(locale);
+            UmmalquraDateFormatSymbols symbols = UmmalquraDateFormatSymbols.getInstance(locale);
             String[] strings = getFieldStrings(field, style, symbols);
             if (strings != null) {
                 int fieldValue = get(field);
@@ -358,7 +697,8 @@ public class UmmalquraCalendar extends GregorianCalendar {
      * UmmalquraDateFormatSymbols}. For example, if <code>field</code> is {@link #MONTH} and
      * <code>style</code> is {@link #ALL_STYLES}, this method returns a <code>Map</code> containing
      * all strings returned by {@link UmmalquraDateFormatSymbols#getShortMonths()} and {@link
-     * UmmalquraDateFormatSymbols#getMonths()}.
+     * UmmalquraDateFormatSymbols#getMonths()}. The month names are read from maps prebuilt once per
+     * locale by {@link UmmalquraSymbolsCache}.
      *
      * @param field  the calendar field for which the display names are returned
      * @param style  the style applied to the display names; one of {@link #SHORT}, {@link #LONG}, or
@@ -375,51 +715,23 @@ public class UmmalquraCalendar extends GregorianCalendar {
     public Map<String, Integer> getDisplayNames(int field, int style, Locale locale) {
 
         if (field == MONTH) {
-            // ALL_STYLES
-            if (style == ALL_STYLES) {
-                Map<String, Integer> shortNames = getDisplayNamesImpl(field, SHORT, locale);
-                Map<String, Integer> longNames = getDisplayNamesImpl(field, LONG, locale);
-                if (shortNames == null) {
-                    return longNames;
-                }
-                if (longNames != null) {
-                    shortNames.putAll(longNames);
-                }
-                return shortNames;
-            }
-
-            // SHORT or LONG
-            return getDisplayNamesImpl(field, style, locale);
+            // SHORT, LONG or ALL_STYLES; callers such as SimpleDateFormat modify the returned map
+            Map<String, Integer> names = UmmalquraDateFormatSymbols.getInstance(locale)
+                    .getMonthNames(style);
+            return names != null ? new HashMap<>(names) : null;
         }
 
         return super.getDisplayNames(field, style, locale);
     }
 
-    private Map<String, Integer> getDisplayNamesImpl(int field, int style, Locale locale) {
-        UmmalquraDateFormatSymbols symbols = new UmmalquraDateFormatSymbols(locale);
-        String[] strings = getFieldStrings(field, style, symbols);
-        if (strings != null) {
-            Map<String, Integer> names = new HashMap<>();
-            for (int i = 0; i < strings.length; i++) {
-                if (strings[i].length() == 0) {
-                    continue;
-                }
-                names.put(strings[i], i);
-            }
-            return names;
-        }
-
-        return null;
-    }
-
     private String[] getFieldStrings(int field, int style, UmmalquraDateFormatSymbols symbols) {
         if (field == MONTH) {
             if (SHORT == style) {
-                return symbols.getShortMonths();
+                return symbols.shortMonths;
             }
 
             if (LONG == style) {
-                return symbols.getMonths();
+                return symbols.months;
             }
         }
 
@@ -427,7 +739,8 @@ public class UmmalquraCalendar extends GregorianCalendar {
     }
 
     public boolean equals(Object obj) {
-        return obj instanceof UmmalquraCalendar && super.equals(obj);
+        return obj instanceof UmmalquraCalendar && super.equals(obj)
+                && getChronology() == ((UmmalquraCalendar) obj).getChronology();
     }
 
     public int hashCode() {
@@ -442,10 +755,221 @@ public class UmmalquraCalendar extends GregorianCalendar {
             hFields = new int[super.fields.length];
         }
 
-        int[] hDateInfo = HijrahChronology.toHijri(new Date(time));
-        hFields[Calendar.YEAR] = hDateInfo[0];
-        hFields[Calendar.MONTH] = hDateInfo[1];
-        hFields[Calendar.DAY_OF_MONTH] = hDateInfo[2];
+        // The local date in this calendar's zone, from the offsets just computed by the super class
+        long localMillis = time + internalGet(ZONE_OFFSET) + internalGet(DST_OFFSET);
+        long epochDay = localMillis / MILLIS_PER_DAY;
+        if (localMillis % MILLIS_PER_DAY < 0) {
+            epochDay--;
+        }
+
+        HijrahChronology chronology = getChronology();
+        long generation = chronology.getGeneration();
+        if (cachedPackedDate == 0 || cachedEpochDay != epochDay || cachedGeneration != generation) {
+            cachedPackedDate = chronology.epochDayToPackedHijri((int) epochDay);
+            cachedEpochDay = (int) epochDay;
+            cachedGeneration = generation;
+        }
+
+        int year = HijrahChronology.packedYear(cachedPackedDate);
+        int dayOfMonth = HijrahChronology.packedDay(cachedPackedDate);
+        hFields[Calendar.YEAR] = year;
+        hFields[Calendar.MONTH] = HijrahChronology.packedMonth(cachedPackedDate);
+        hFields[Calendar.DAY_OF_MONTH] = dayOfMonth;
+        hFields[Calendar.DAY_OF_YEAR] = cachedEpochDay - chronology.getYearStartEpochDay(year) + 1;
+        hFields[Calendar.DAY_OF_WEEK_IN_MONTH] = (dayOfMonth - 1) / 7 + 1;
+        computeWeekFields();
+    }
+
+    /**
+     * Computes <code>WEEK_OF_YEAR</code> and <code>WEEK_OF_MONTH</code> of {@link #cachedEpochDay}
+     * from the Hijrah year and month start days, following the first day of week and minimal days
+     * in first week of this calendar.
+     */
+    private void computeWeekFields() {
+        HijrahChronology chronology = getChronology();
+        int epochDay = cachedEpochDay;
+        int year = hFields[YEAR];
+        int yearStart = epochDay - hFields[DAY_OF_YEAR] + 1;
+
+        int weekOfYear = weekNumber(yearStart, epochDay);
+        if (weekOfYear == 0) {
+            // The day belongs to the last week of the previous year
+            int previousYearStart = year > chronology.getMinimumYear()
+                    ? chronology.getYearStartEpochDay(year - 1)
+                    : yearStart - chronology.getSmallestMaximumDayOfYear();
+            weekOfYear = weekNumber(previousYearStart, epochDay);
+        } else {
+            // The last days of a year may belong to the first week of the next year
+            int nextYearStart = yearStart + chronology.getYearLength(year);
+            if (epochDay >= nextYearStart - 6 && weekNumber(nextYearStart, epochDay) == 1) {
+                weekOfYear = 1;
+            }
+        }
+
+        hFields[WEEK_OF_YEAR] = weekOfYear;
+        hFields[WEEK_OF_MONTH] = weekNumber(epochDay - hFields[DAY_OF_MONTH] + 1, epochDay);
+    }
+
+    /**
+     * Returns the number of the week containing an epoch day, counted from the first week of a
+     * period as defined by the first day of week and minimal days in first week of this calendar.
+     *
+     * @param periodStart the epoch day of the first day of the period
+     * @param epochDay    the epoch day
+     * @return the week number, 0 if the day is before the first week of the period
+     */
+    private int weekNumber(long periodStart, long epochDay) {
+        return (int) floorDiv(epochDay - firstWeekStart(periodStart), 7) + 1;
+    }
+
+    /**
+     * Returns the epoch day of the first day of the first week of a period, which may be before
+     * the period start when the partial week at the start of the period is long enough.
+     *
+     * @param periodStart the epoch day of the first day of the period
+     * @return the epoch day of the first day of week 1
+     */
+    private long firstWeekStart(long periodStart) {
+        // The first day of the first full week starting on or after the period start
+        long weekStart = periodStart + 6;
+        weekStart -= floorMod(floorMod(weekStart + 4, 7) + 1 - getFirstDayOfWeek(), 7);
+        if (weekStart - periodStart >= getMinimalDaysInFirstWeek()) {
+            // The partial week at the start of the period is long enough to be its first week
+            weekStart -= 7;
+        }
+        return weekStart;
+    }
+
+    @Override
+    public void setFirstDayOfWeek(int value) {
+        super.setFirstDayOfWeek(value);
+        if (cachedPackedDate != 0) {
+            computeWeekFields();
+        }
+    }
+
+    @Override
+    public void setMinimalDaysInFirstWeek(int value) {
+        super.setMinimalDaysInFirstWeek(value);
+        if (cachedPackedDate != 0) {
+            computeWeekFields();
+        }
+    }
+
+    /**
+     * Returns the maximum value that the specified calendar field could have, given the time value
+     * of this calendar. The <code>YEAR</code>, <code>DAY_OF_MONTH</code>,
+     * <code>DAY_OF_YEAR</code>, <code>WEEK_OF_YEAR</code>, <code>WEEK_OF_MONTH</code> and
+     * <code>DAY_OF_WEEK_IN_MONTH</code> fields follow the Ummalqura calendar.
+     *
+     * @param field the calendar field
+     * @return the maximum of the given field for the time value of this calendar
+     */
+    @Override
+    public int getActualMaximum(int field) {
+        switch (field) {
+            case YEAR:
+                return getChronology().getMaximumYear();
+            case DAY_OF_MONTH:
+                return lengthOfMonth();
+            case DAY_OF_YEAR:
+                return lengthOfYear();
+            case DAY_OF_WEEK_IN_MONTH:
+                return (lengthOfMonth() - 1) / 7 + 1;
+            case WEEK_OF_MONTH: {
+                int monthStart = getEpochDay() - hFields[DAY_OF_MONTH] + 1;
+                return weekNumber(monthStart, monthStart + lengthOfMonth() - 1);
+            }
+            case WEEK_OF_YEAR: {
+                int yearStart = getEpochDay() - hFields[DAY_OF_YEAR] + 1;
+                int yearEnd = yearStart + lengthOfYear();
+                int lastWeek = weekNumber(yearStart, yearEnd - 1);
+                // The last week may be the first week of the next year
+                return weekNumber(yearEnd, yearEnd - 1) == 1 ? lastWeek - 1 : lastWeek;
+            }
+            default:
+                return super.getActualMaximum(field);
+        }
+    }
+
+    /**
+     * Returns the minimum value that the specified calendar field could have, given the time value
+     * of this calendar. The <code>YEAR</code>, <code>DAY_OF_MONTH</code>,
+     * <code>DAY_OF_YEAR</code>, <code>WEEK_OF_YEAR</code>, <code>WEEK_OF_MONTH</code> and
+     * <code>DAY_OF_WEEK_IN_MONTH</code> fields follow the Ummalqura calendar.
+     *
+     * @param field the calendar field
+     * @return the minimum of the given field for the time value of this calendar
+     */
+    @Override
+    public int getActualMinimum(int field) {
+        switch (field) {
+            case YEAR:
+                return getChronology().getMinimumYear();
+            case DAY_OF_MONTH:
+            case DAY_OF_YEAR:
+            case WEEK_OF_YEAR:
+            case DAY_OF_WEEK_IN_MONTH:
+                return 1;
+            case WEEK_OF_MONTH: {
+                int monthStart = getEpochDay() - hFields[DAY_OF_MONTH] + 1;
+                return weekNumber(monthStart, monthStart);
+            }
+            default:
+                return super.getActualMinimum(field);
+        }
+    }
+
+    /**
+     * Returns the lowest maximum value for the given calendar field. The
+     * <code>YEAR</code>, <code>DAY_OF_MONTH</code>, <code>DAY_OF_YEAR</code>,
+     * <code>WEEK_OF_YEAR</code> and <code>DAY_OF_WEEK_IN_MONTH</code> fields follow the
+     * Ummalqura calendar. The actual maximum of <code>YEAR</code> is the last year of the calendar
+     * data whatever the time value, so it is also its lowest maximum.
+     *
+     * @param field the calendar field
+     * @return the lowest maximum value for the given calendar field
+     */
+    @Override
+    public int getLeastMaximum(int field) {
+        switch (field) {
+            case YEAR:
+                return getChronology().getMaximumYear();
+            case DAY_OF_MONTH:
+                return getChronology().getMinimumMonthLength();
+            case DAY_OF_YEAR:
+                return getChronology().getSmallestMaximumDayOfYear();
+            case DAY_OF_WEEK_IN_MONTH:
+                return (getChronology().getMinimumMonthLength() - 1) / 7 + 1;
+            case WEEK_OF_YEAR:
+                return LEAST_MAX_WEEK_OF_YEAR;
+            default:
+                return super.getLeastMaximum(field);
+        }
+    }
+
+    /**
+     * Returns the local epoch day of this calendar, computing the fields if needed.
+     */
+    private int getEpochDay() {
+        complete();
+        return cachedEpochDay;
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        stream.defaultReadObject();
+        if (chronology == null) {
+            chronology = HijrahChronology.INSTANCE;
+        }
+    }
+
+    @Override
+    public Object clone() {
+        UmmalquraCalendar other = (UmmalquraCalendar) super.clone();
+        if (hFields != null) {
+            other.hFields = hFields.clone();
+        }
+        return other;
     }
 
 }
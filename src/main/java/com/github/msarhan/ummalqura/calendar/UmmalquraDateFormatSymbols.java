@@ -27,16 +27,33 @@ package com.github.msarhan.ummalqura.calendar;
 import java.util.*;
 
 /**
+ * The localized month names of the Ummalqura calendar.
+ * <p>
+ * Instances are immutable. {@link #getInstance(Locale)} returns shared instances from
+ * {@link UmmalquraSymbolsCache}, together with prebuilt name to value maps, so that formatting
+ * and parsing do not load resource bundles or copy arrays on every call.
+ *
  * @author Mouaffak A. Sarhan.
  */
 class UmmalquraDateFormatSymbols {
 
+    /**
+     * Falls back to English for locales without month names. A single instance is shared so
+     * that {@link ResourceBundle} caches the loaded bundles.
+     */
+    private static final ResourceBundle.Control CONTROL = new ResourceBundle.Control() {
+        @Override
+        public Locale getFallbackLocale(String baseName, Locale locale) {
+            return Locale.ENGLISH;
+        }
+    };
+
     /**
      * The locale which is used for initializing this DateFormatSymbols object.
      *
      * @serial
      */
-    Locale locale = null;
+    final Locale locale;
 
     /**
      * Month strings. For example: "Muharram", "Safar", etc.  An array of 12 strings, indexed by
@@ -44,7 +61,7 @@ class UmmalquraDateFormatSymbols {
      *
      * @serial
      */
-    String[] months = null;
+    final String[] months;
 
     /**
      * Short month strings. For example: "Muh", "Saf", etc.  An array of 12 strings, indexed by
@@ -52,14 +69,51 @@ class UmmalquraDateFormatSymbols {
      *
      * @serial
      */
-    String[] shortMonths = null;
+    final String[] shortMonths;
+
+    /**
+     * Unmodifiable maps of month names to month values for the <code>SHORT</code>,
+     * <code>LONG</code> and <code>ALL_STYLES</code> styles.
+     */
+    private final Map<String, Integer> shortMonthNames;
+    private final Map<String, Integer> longMonthNames;
+    private final Map<String, Integer> allMonthNames;
 
     public UmmalquraDateFormatSymbols() {
-        initializeData(Locale.getDefault(Locale.Category.FORMAT));
+        this(Locale.getDefault(Locale.Category.FORMAT));
     }
 
     public UmmalquraDateFormatSymbols(Locale locale) {
-        initializeData(locale);
+        this.locale = locale;
+
+        // Initialize the fields from the ResourceBundle for locale.
+        ResourceBundle resource = ResourceBundle
+                .getBundle("com.github.msarhan.ummalqura.calendar.text.UmmalquraFormatData",
+                        locale, CONTROL);
+
+        if (resource instanceof PropertyResourceBundle) {
+            months = resource.getString("MonthNames").split(",");
+            shortMonths = resource.getString("MonthAbbreviations").split(",");
+        } else {
+            months = resource.getStringArray("MonthNames");
+            shortMonths = resource.getStringArray("MonthAbbreviations");
+        }
+
+        shortMonthNames = Collections.unmodifiableMap(createNames(shortMonths));
+        longMonthNames = Collections.unmodifiableMap(createNames(months));
+        Map<String, Integer> allNames = createNames(shortMonths);
+        allNames.putAll(longMonthNames);
+        allMonthNames = Collections.unmodifiableMap(allNames);
+    }
+
+    /**
+     * Returns the shared symbols of a locale.
+     *
+     * @param locale the locale
+     * @return the symbols
+     */
+    static UmmalquraDateFormatSymbols getInstance(Locale locale) {
+        return UmmalquraSymbolsCache.get(locale);
     }
 
     /**
@@ -80,27 +134,34 @@ class UmmalquraDateFormatSymbols {
         return Arrays.copyOf(shortMonths, shortMonths.length);
     }
 
-    private void initializeData(Locale desiredLocale) {
-        locale = desiredLocale;
+    /**
+     * Returns an unmodifiable map of month names to month values.
+     *
+     * @param style {@link Calendar#SHORT}, {@link Calendar#LONG} or {@link Calendar#ALL_STYLES}
+     * @return the month names, or <code>null</code> for other styles
+     */
+    Map<String, Integer> getMonthNames(int style) {
+        switch (style) {
+            case Calendar.SHORT:
+                return shortMonthNames;
+            case Calendar.LONG:
+                return longMonthNames;
+            case Calendar.ALL_STYLES:
+                return allMonthNames;
+            default:
+                return null;
+        }
+    }
 
-        // Initialize the fields from the ResourceBundle for locale.
-        ResourceBundle resource = ResourceBundle
-                .getBundle("com.github.msarhan.ummalqura.calendar.text.UmmalquraFormatData",
-                        locale,
-                        new ResourceBundle.Control() {
-                            @Override
-                            public Locale getFallbackLocale(String baseName, Locale locale) {
-                                return Locale.ENGLISH;
-                            }
-                        });
-
-        if(ListResourceBundle.class.isAssignableFrom(resource.getClass())) {
-            months = resource.getStringArray("MonthNames");
-            shortMonths = resource.getStringArray("MonthAbbreviations");
-        } else if(PropertyResourceBundle.class.isAssignableFrom(resource.getClass())){
-            months = resource.getString("MonthNames").split(",");
-            shortMonths = resource.getString("MonthAbbreviations").split(",");
+    private static Map<String, Integer> createNames(String[] strings) {
+        Map<String, Integer> names = new HashMap<>();
+        for (int i = 0; i < strings.length; i++) {
+            if (strings[i].length() == 0) {
+                continue;
+            }
+            names.put(strings[i], i);
         }
+        return names;
     }
 
 }
@@ -0,0 +1,160 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The per-locale cache of the month names used by {@link UmmalquraCalendar#getDisplayName} and
+ * {@link UmmalquraCalendar#getDisplayNames}, and therefore by {@link java.text.SimpleDateFormat}
+ * when formatting or parsing month names.
+ * <p>
+ * Lookups do not lock. The cache holds at most {@link #getMaximumSize()} locales, set by the
+ * system property {@value #PROP_MAXIMUM_SIZE}; when it is full an arbitrary locale is evicted to
+ * make room for a new one.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class UmmalquraSymbolsCache {
+
+    /**
+     * System property setting the maximum number of cached locales.
+     */
+    public static final String PROP_MAXIMUM_SIZE =
+            "com.github.msarhan.ummalqura.calendar.symbols.cacheSize";
+    /**
+     * The maximum number of cached locales when {@link #PROP_MAXIMUM_SIZE} is not set.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 64;
+
+    private static final int MAXIMUM_SIZE = readMaximumSize();
+
+    private static final ConcurrentMap<Locale, UmmalquraDateFormatSymbols> SYMBOLS =
+            new ConcurrentHashMap<>();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private UmmalquraSymbolsCache() {
+    }
+
+    /**
+     * Returns the symbols of a locale, loading and caching them on a miss.
+     *
+     * @param locale the locale
+     * @return the symbols
+     */
+    static UmmalquraDateFormatSymbols get(Locale locale) {
+        UmmalquraDateFormatSymbols symbols = SYMBOLS.get(locale);
+        if (symbols != null) {
+            HITS.incrementAndGet();
+            return symbols;
+        }
+
+        MISSES.incrementAndGet();
+        symbols = new UmmalquraDateFormatSymbols(locale);
+        if (MAXIMUM_SIZE == 0) {
+            return symbols;
+        }
+        UmmalquraDateFormatSymbols existing = SYMBOLS.putIfAbsent(locale, symbols);
+        if (existing != null) {
+            return existing;
+        }
+        evict(locale);
+        return symbols;
+    }
+
+    /**
+     * Removes arbitrary locales other than the one just added until the cache is within bounds.
+     */
+    private static void evict(Locale added) {
+        Iterator<Locale> it = SYMBOLS.keySet().iterator();
+        while (SYMBOLS.size() > MAXIMUM_SIZE && it.hasNext()) {
+            if (!it.next().equals(added)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static int readMaximumSize() {
+        String value = System.getProperty(PROP_MAXIMUM_SIZE);
+        if (value == null) {
+            return DEFAULT_MAXIMUM_SIZE;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            return DEFAULT_MAXIMUM_SIZE;
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public static long getHitCount() {
+        return HITS.get();
+    }
+
+    /**
+     * Returns the number of lookups that had to load the month names of a locale.
+     *
+     * @return the miss count
+     */
+    public static long getMissCount() {
+        return MISSES.get();
+    }
+
+    /**
+     * Returns the number of cached locales.
+     *
+     * @return the size of the cache
+     */
+    public static int getSize() {
+        return SYMBOLS.size();
+    }
+
+    /**
+     * Returns the maximum number of cached locales.
+     *
+     * @return the maximum size, 0 if caching is disabled
+     */
+    public static int getMaximumSize() {
+        return MAXIMUM_SIZE;
+    }
+
+    /**
+     * Removes all cached locales, e.g. after adding month names for a locale at runtime. The
+     * statistics are kept.
+     */
+    public static void clear() {
+        SYMBOLS.clear();
+    }
+}
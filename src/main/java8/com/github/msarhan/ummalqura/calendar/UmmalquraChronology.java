@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.chrono.AbstractChronology;
+import java.time.chrono.ChronoLocalDateTime;
+import java.time.chrono.ChronoZonedDateTime;
+import java.time.chrono.Era;
+import java.time.chrono.HijrahEra;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.ValueRange;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link java.time.chrono.Chronology} backed by the tables of a {@link HijrahChronology}.
+ * <p>
+ * Dates are {@link UmmalquraDate} values; converting from or to a {@link LocalDate} is a single
+ * epoch day lookup in the table of month start days. Unlike the chronology of the same id built
+ * into the JDK, this chronology follows the tables loaded or replaced through
+ * {@link HijrahChronology}. It is not registered with {@link java.time.chrono.Chronology#of}.
+ * <p>
+ * This class requires Java 8 or later; the rest of the library runs on Java 7.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class UmmalquraChronology extends AbstractChronology implements Serializable {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = 4205633513427131652L;
+    /**
+     * The chronology of {@link HijrahChronology#INSTANCE}, the Umm Al-Qura calendar.
+     */
+    public static final UmmalquraChronology INSTANCE = new UmmalquraChronology(HijrahChronology.INSTANCE);
+
+    /**
+     * The table backing this chronology.
+     */
+    private final HijrahChronology hijrah;
+
+    private UmmalquraChronology(HijrahChronology hijrah) {
+        this.hijrah = hijrah;
+    }
+
+    /**
+     * Obtains the chronology backed by the given Hijrah chronology.
+     *
+     * @param hijrah the Hijrah chronology, e.g. a variant returned by {@link HijrahChronology#load}
+     * @return the chronology
+     */
+    public static UmmalquraChronology of(HijrahChronology hijrah) {
+        if (hijrah == null) {
+            throw new NullPointerException("hijrah");
+        }
+        return hijrah == HijrahChronology.INSTANCE ? INSTANCE : new UmmalquraChronology(hijrah);
+    }
+
+    /**
+     * Returns the Hijrah chronology backing this chronology.
+     *
+     * @return the Hijrah chronology
+     */
+    public HijrahChronology getHijrahChronology() {
+        return hijrah;
+    }
+
+    @Override
+    public String getId() {
+        return hijrah.getId();
+    }
+
+    /**
+     * Returns the calendar type of the Umm Al-Qura calendar, {@code islamic-umalqura}, or
+     * {@code null} for variants, which have no CLDR type.
+     *
+     * @return the calendar type, may be null
+     */
+    @Override
+    public String getCalendarType() {
+        return hijrah == HijrahChronology.INSTANCE ? "islamic-umalqura" : null;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public UmmalquraDate date(Era era, int yearOfEra, int month, int dayOfMonth) {
+        return date(prolepticYear(era, yearOfEra), month, dayOfMonth);
+    }
+
+    @Override
+    public UmmalquraDate date(int prolepticYear, int month, int dayOfMonth) {
+        return UmmalquraDate.of(this, prolepticYear, month, dayOfMonth);
+    }
+
+    @Override
+    public UmmalquraDate dateYearDay(Era era, int yearOfEra, int dayOfYear) {
+        return dateYearDay(prolepticYear(era, yearOfEra), dayOfYear);
+    }
+
+    @Override
+    public UmmalquraDate dateYearDay(int prolepticYear, int dayOfYear) {
+        return UmmalquraDate.ofYearDay(this, prolepticYear, dayOfYear);
+    }
+
+    @Override
+    public UmmalquraDate dateEpochDay(long epochDay) {
+        return UmmalquraDate.ofEpochDay(this, epochDay);
+    }
+
+    @Override
+    public UmmalquraDate dateNow() {
+        return dateNow(Clock.systemDefaultZone());
+    }
+
+    @Override
+    public UmmalquraDate dateNow(ZoneId zone) {
+        return dateNow(Clock.system(zone));
+    }
+
+    @Override
+    public UmmalquraDate dateNow(Clock clock) {
+        return dateEpochDay(LocalDate.now(clock).toEpochDay());
+    }
+
+    @Override
+    public UmmalquraDate date(TemporalAccessor temporal) {
+        if (temporal instanceof UmmalquraDate && equals(((UmmalquraDate) temporal).getChronology())) {
+            return (UmmalquraDate) temporal;
+        }
+        return dateEpochDay(temporal.getLong(ChronoField.EPOCH_DAY));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChronoLocalDateTime<UmmalquraDate> localDateTime(TemporalAccessor temporal) {
+        return (ChronoLocalDateTime<UmmalquraDate>) super.localDateTime(temporal);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChronoZonedDateTime<UmmalquraDate> zonedDateTime(TemporalAccessor temporal) {
+        return (ChronoZonedDateTime<UmmalquraDate>) super.zonedDateTime(temporal);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChronoZonedDateTime<UmmalquraDate> zonedDateTime(Instant instant, ZoneId zone) {
+        return (ChronoZonedDateTime<UmmalquraDate>) super.zonedDateTime(instant, zone);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean isLeapYear(long prolepticYear) {
+        return hijrah.isLeapYear(prolepticYear);
+    }
+
+    @Override
+    public int prolepticYear(Era era, int yearOfEra) {
+        if (!(era instanceof HijrahEra)) {
+            throw new ClassCastException("Era must be HijrahEra");
+        }
+        return yearOfEra;
+    }
+
+    @Override
+    public HijrahEra eraOf(int eraValue) {
+        if (eraValue != 1) {
+            throw new java.time.DateTimeException("invalid Hijrah era: " + eraValue);
+        }
+        return HijrahEra.AH;
+    }
+
+    @Override
+    public List<Era> eras() {
+        return Arrays.<Era>asList(HijrahEra.values());
+    }
+
+    @Override
+    public ValueRange range(ChronoField field) {
+        switch (field) {
+            case DAY_OF_MONTH:
+                return ValueRange.of(1, 1, hijrah.getMinimumMonthLength(), hijrah.getMaximumMonthLength());
+            case DAY_OF_YEAR:
+                return ValueRange.of(1, hijrah.getMaximumDayOfYear());
+            case ALIGNED_WEEK_OF_MONTH:
+                return ValueRange.of(1, 5);
+            case YEAR:
+            case YEAR_OF_ERA:
+                return ValueRange.of(hijrah.getMinimumYear(), hijrah.getMaximumYear());
+            case ERA:
+                return ValueRange.of(1, 1);
+            default:
+                return field.range();
+        }
+    }
+
+    //-----------------------------------------------------------------------
+
+    /**
+     * Converts an exception of the core library to its {@code java.time} counterpart.
+     *
+     * @param ex the exception thrown by {@link HijrahChronology}
+     * @return the exception to throw
+     */
+    static java.time.DateTimeException rethrow(DateTimeException ex) {
+        return new java.time.DateTimeException(ex.getMessage(), ex);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || (obj instanceof UmmalquraChronology
+                && hijrah == ((UmmalquraChronology) obj).hijrah);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode() ^ hijrah.hashCode();
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        return of(hijrah);
+    }
+}
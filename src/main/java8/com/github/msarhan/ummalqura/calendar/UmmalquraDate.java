@@ -0,0 +1,516 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.chrono.ChronoLocalDate;
+import java.time.chrono.ChronoLocalDateTime;
+import java.time.chrono.ChronoPeriod;
+import java.time.chrono.HijrahEra;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAdjuster;
+import java.time.temporal.TemporalAmount;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalUnit;
+import java.time.temporal.UnsupportedTemporalTypeException;
+import java.time.temporal.ValueRange;
+
+/**
+ * An immutable date in an {@link UmmalquraChronology}.
+ * <p>
+ * The date holds its year, month, day and ISO epoch day, all resolved once when it is created
+ * from the table of month start days; no {@link java.util.Calendar} is involved. These four values
+ * are kept if the data of the chronology is
+ * {@linkplain HijrahChronology#replaceData(java.io.InputStream) replaced} later, but everything
+ * else is read from the data current at the time of the call: the day of year, the month and
+ * year lengths, field ranges and date arithmetic. After a replacement that moves the date these
+ * may therefore disagree with the held year, month and day; obtain the date again, e.g. with
+ * {@link UmmalquraChronology#dateEpochDay(long)}, to resolve it against the new data.
+ * <p>
+ * This class requires Java 8 or later. Instances are immutable and thread-safe.
+ *
+ * @author Mouaffak A. Sarhan.
+ */
+public final class UmmalquraDate implements ChronoLocalDate, Serializable {
+
+    /**
+     * Serialization version.
+     */
+    private static final long serialVersionUID = -5207853542612002020L;
+
+    private final UmmalquraChronology chronology;
+    private final int prolepticYear;
+    private final int monthOfYear;
+    private final int dayOfMonth;
+    private final int epochDay;
+
+    private UmmalquraDate(UmmalquraChronology chronology, int prolepticYear, int monthOfYear,
+                          int dayOfMonth, int epochDay) {
+        this.chronology = chronology;
+        this.prolepticYear = prolepticYear;
+        this.monthOfYear = monthOfYear;
+        this.dayOfMonth = dayOfMonth;
+        this.epochDay = epochDay;
+    }
+
+    /**
+     * Obtains an Umm Al-Qura date.
+     *
+     * @param prolepticYear the year
+     * @param monthOfYear   the month, 1-based
+     * @param dayOfMonth    the day of month, 1-based
+     * @return the date
+     * @throws java.time.DateTimeException if the date is invalid or out of the supported range
+     */
+    public static UmmalquraDate of(int prolepticYear, int monthOfYear, int dayOfMonth) {
+        return of(UmmalquraChronology.INSTANCE, prolepticYear, monthOfYear, dayOfMonth);
+    }
+
+    /**
+     * Obtains the Umm Al-Qura date of an ISO date.
+     *
+     * @param date the ISO date
+     * @return the date
+     * @throws java.time.DateTimeException if the date is out of the supported range
+     */
+    public static UmmalquraDate from(LocalDate date) {
+        return ofEpochDay(UmmalquraChronology.INSTANCE, date.toEpochDay());
+    }
+
+    static UmmalquraDate of(UmmalquraChronology chronology, int prolepticYear, int monthOfYear,
+                            int dayOfMonth) {
+        try {
+            int epochDay = chronology.getHijrahChronology()
+                    .hijriToEpochDay(prolepticYear, monthOfYear - 1, dayOfMonth);
+            return new UmmalquraDate(chronology, prolepticYear, monthOfYear, dayOfMonth, epochDay);
+        } catch (DateTimeException ex) {
+            throw UmmalquraChronology.rethrow(ex);
+        }
+    }
+
+    static UmmalquraDate ofYearDay(UmmalquraChronology chronology, int prolepticYear, int dayOfYear) {
+        HijrahChronology hijrah = chronology.getHijrahChronology();
+        try {
+            hijrah.checkValidYear(prolepticYear);
+            if (dayOfYear < 1 || dayOfYear > hijrah.getYearLength(prolepticYear)) {
+                throw new DateTimeException("Invalid Hijrah day of year: " + dayOfYear);
+            }
+            return ofEpochDay(chronology, hijrah.hijriToEpochDay(prolepticYear, 0, 1) + dayOfYear - 1);
+        } catch (DateTimeException ex) {
+            throw UmmalquraChronology.rethrow(ex);
+        }
+    }
+
+    static UmmalquraDate ofEpochDay(UmmalquraChronology chronology, long epochDay) {
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new java.time.DateTimeException("Hijrah date out of range");
+        }
+        try {
+            int packed = chronology.getHijrahChronology().epochDayToPackedHijri((int) epochDay);
+            return new UmmalquraDate(chronology, HijrahChronology.packedYear(packed),
+                    HijrahChronology.packedMonth(packed) + 1, HijrahChronology.packedDay(packed),
+                    (int) epochDay);
+        } catch (DateTimeException ex) {
+            throw UmmalquraChronology.rethrow(ex);
+        }
+    }
+
+    /**
+     * Returns a date with the given year and month, the day of month being clamped to the length
+     * of the resulting month.
+     */
+    private UmmalquraDate resolvePreviousValid(long prolepticYear, long monthOfYear, int dayOfMonth) {
+        HijrahChronology hijrah = chronology.getHijrahChronology();
+        int year;
+        try {
+            year = hijrah.checkValidYear(prolepticYear);
+            hijrah.checkValidMonth((int) monthOfYear);
+            int monthLength = hijrah.getMonthLength(year, (int) monthOfYear);
+            return of(chronology, year, (int) monthOfYear, Math.min(dayOfMonth, monthLength));
+        } catch (DateTimeException ex) {
+            throw UmmalquraChronology.rethrow(ex);
+        }
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public UmmalquraChronology getChronology() {
+        return chronology;
+    }
+
+    @Override
+    public HijrahEra getEra() {
+        return HijrahEra.AH;
+    }
+
+    /**
+     * Returns the year.
+     *
+     * @return the proleptic year
+     */
+    public int getYear() {
+        return prolepticYear;
+    }
+
+    /**
+     * Returns the month.
+     *
+     * @return the month of year, 1-based
+     */
+    public int getMonthValue() {
+        return monthOfYear;
+    }
+
+    /**
+     * Returns the day of month.
+     *
+     * @return the day of month, 1-based
+     */
+    public int getDayOfMonth() {
+        return dayOfMonth;
+    }
+
+    /**
+     * Returns the day of year.
+     *
+     * @return the day of year, 1-based
+     */
+    public int getDayOfYear() {
+        return chronology.getHijrahChronology().getDayOfYear(prolepticYear, monthOfYear) + dayOfMonth;
+    }
+
+    @Override
+    public int lengthOfMonth() {
+        return chronology.getHijrahChronology().getMonthLength(prolepticYear, monthOfYear);
+    }
+
+    @Override
+    public int lengthOfYear() {
+        return chronology.getHijrahChronology().getYearLength(prolepticYear);
+    }
+
+    @Override
+    public long toEpochDay() {
+        return epochDay;
+    }
+
+    /**
+     * Converts this date to an ISO date.
+     *
+     * @return the ISO date of the same day
+     */
+    public LocalDate toLocalDate() {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public ValueRange range(TemporalField field) {
+        if (field instanceof ChronoField) {
+            if (!isSupported(field)) {
+                throw new UnsupportedTemporalTypeException("Unsupported field: " + field);
+            }
+            switch ((ChronoField) field) {
+                case DAY_OF_MONTH:
+                    return ValueRange.of(1, lengthOfMonth());
+                case DAY_OF_YEAR:
+                    return ValueRange.of(1, lengthOfYear());
+                case ALIGNED_WEEK_OF_MONTH:
+                    return ValueRange.of(1, 5);
+                default:
+                    return chronology.range((ChronoField) field);
+            }
+        }
+        return field.rangeRefinedBy(this);
+    }
+
+    @Override
+    public long getLong(TemporalField field) {
+        if (field instanceof ChronoField) {
+            switch ((ChronoField) field) {
+                case DAY_OF_WEEK:
+                    return getDayOfWeek();
+                case ALIGNED_DAY_OF_WEEK_IN_MONTH:
+                    return ((dayOfMonth - 1) % 7) + 1;
+                case ALIGNED_DAY_OF_WEEK_IN_YEAR:
+                    return ((getDayOfYear() - 1) % 7) + 1;
+                case DAY_OF_MONTH:
+                    return dayOfMonth;
+                case DAY_OF_YEAR:
+                    return getDayOfYear();
+                case EPOCH_DAY:
+                    return epochDay;
+                case ALIGNED_WEEK_OF_MONTH:
+                    return ((dayOfMonth - 1) / 7) + 1;
+                case ALIGNED_WEEK_OF_YEAR:
+                    return ((getDayOfYear() - 1) / 7) + 1;
+                case MONTH_OF_YEAR:
+                    return monthOfYear;
+                case PROLEPTIC_MONTH:
+                    return getProlepticMonth();
+                case YEAR_OF_ERA:
+                case YEAR:
+                    return prolepticYear;
+                case ERA:
+                    return 1;
+                default:
+                    throw new UnsupportedTemporalTypeException("Unsupported field: " + field);
+            }
+        }
+        return field.getFrom(this);
+    }
+
+    private int getDayOfWeek() {
+        return Math.floorMod(epochDay + 3, 7) + 1;
+    }
+
+    private long getProlepticMonth() {
+        return prolepticYear * 12L + monthOfYear - 1;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public UmmalquraDate with(TemporalField field, long newValue) {
+        if (field instanceof ChronoField) {
+            ChronoField f = (ChronoField) field;
+            chronology.range(f).checkValidValue(newValue, f);
+            switch (f) {
+                case DAY_OF_WEEK:
+                    return plusDays(newValue - getDayOfWeek());
+                case ALIGNED_DAY_OF_WEEK_IN_MONTH:
+                    return plusDays(newValue - getLong(ChronoField.ALIGNED_DAY_OF_WEEK_IN_MONTH));
+                case ALIGNED_DAY_OF_WEEK_IN_YEAR:
+                    return plusDays(newValue - getLong(ChronoField.ALIGNED_DAY_OF_WEEK_IN_YEAR));
+                case DAY_OF_MONTH:
+                    return of(chronology, prolepticYear, monthOfYear, (int) newValue);
+                case DAY_OF_YEAR:
+                    return plusDays(Math.min(newValue, lengthOfYear()) - getDayOfYear());
+                case EPOCH_DAY:
+                    return ofEpochDay(chronology, newValue);
+                case ALIGNED_WEEK_OF_MONTH:
+                    return plusDays((newValue - getLong(ChronoField.ALIGNED_WEEK_OF_MONTH)) * 7);
+                case ALIGNED_WEEK_OF_YEAR:
+                    return plusDays((newValue - getLong(ChronoField.ALIGNED_WEEK_OF_YEAR)) * 7);
+                case MONTH_OF_YEAR:
+                    return resolvePreviousValid(prolepticYear, newValue, dayOfMonth);
+                case PROLEPTIC_MONTH:
+                    return plusMonths(newValue - getProlepticMonth());
+                case YEAR_OF_ERA:
+                case YEAR:
+                    return resolvePreviousValid(newValue, monthOfYear, dayOfMonth);
+                case ERA:
+                    return this;
+                default:
+                    throw new UnsupportedTemporalTypeException("Unsupported field: " + field);
+            }
+        }
+        return ensureValid(field.adjustInto(this, newValue));
+    }
+
+    @Override
+    public UmmalquraDate with(TemporalAdjuster adjuster) {
+        return ensureValid(adjuster.adjustInto(this));
+    }
+
+    @Override
+    public UmmalquraDate plus(TemporalAmount amount) {
+        return ensureValid(amount.addTo(this));
+    }
+
+    @Override
+    public UmmalquraDate plus(long amountToAdd, TemporalUnit unit) {
+        if (unit instanceof ChronoUnit) {
+            switch ((ChronoUnit) unit) {
+                case DAYS:
+                    return plusDays(amountToAdd);
+                case WEEKS:
+                    return plusDays(Math.multiplyExact(amountToAdd, 7));
+                case MONTHS:
+                    return plusMonths(amountToAdd);
+                case YEARS:
+                    return plusYears(amountToAdd);
+                case DECADES:
+                    return plusYears(Math.multiplyExact(amountToAdd, 10));
+                case CENTURIES:
+                    return plusYears(Math.multiplyExact(amountToAdd, 100));
+                case MILLENNIA:
+                    return plusYears(Math.multiplyExact(amountToAdd, 1000));
+                default:
+                    throw new UnsupportedTemporalTypeException("Unsupported unit: " + unit);
+            }
+        }
+        return ensureValid(unit.addTo(this, amountToAdd));
+    }
+
+    @Override
+    public UmmalquraDate minus(TemporalAmount amount) {
+        return ensureValid(amount.subtractFrom(this));
+    }
+
+    @Override
+    public UmmalquraDate minus(long amountToSubtract, TemporalUnit unit) {
+        return amountToSubtract == Long.MIN_VALUE
+                ? plus(Long.MAX_VALUE, unit).plus(1, unit)
+                : plus(-amountToSubtract, unit);
+    }
+
+    /**
+     * Returns a copy of this date with the given number of days added.
+     *
+     * @param days the days to add, may be negative
+     * @return the resulting date
+     * @throws java.time.DateTimeException if the result is out of the supported range
+     */
+    public UmmalquraDate plusDays(long days) {
+        return days == 0 ? this : ofEpochDay(chronology, Math.addExact(epochDay, days));
+    }
+
+    /**
+     * Returns a copy of this date with the given number of months added. The day of month is
+     * clamped to the length of the resulting month.
+     *
+     * @param months the months to add, may be negative
+     * @return the resulting date
+     * @throws java.time.DateTimeException if the result is out of the supported range
+     */
+    public UmmalquraDate plusMonths(long months) {
+        if (months == 0) {
+            return this;
+        }
+        long prolepticMonth = Math.addExact(getProlepticMonth(), months);
+        return resolvePreviousValid(Math.floorDiv(prolepticMonth, 12),
+                Math.floorMod(prolepticMonth, 12) + 1, dayOfMonth);
+    }
+
+    /**
+     * Returns a copy of this date with the given number of years added. The day of month is
+     * clamped to the length of the resulting month.
+     *
+     * @param years the years to add, may be negative
+     * @return the resulting date
+     * @throws java.time.DateTimeException if the result is out of the supported range
+     */
+    public UmmalquraDate plusYears(long years) {
+        return years == 0 ? this
+                : resolvePreviousValid(Math.addExact(prolepticYear, years), monthOfYear, dayOfMonth);
+    }
+
+    private UmmalquraDate ensureValid(Temporal temporal) {
+        UmmalquraDate other = (UmmalquraDate) temporal;
+        if (!chronology.equals(other.chronology)) {
+            throw new ClassCastException("Chronology mismatch, expected: " + chronology.getId()
+                    + ", actual: " + other.chronology.getId());
+        }
+        return other;
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public long until(Temporal endExclusive, TemporalUnit unit) {
+        UmmalquraDate end = chronology.date(endExclusive);
+        if (unit instanceof ChronoUnit) {
+            switch ((ChronoUnit) unit) {
+                case DAYS:
+                    return end.epochDay - epochDay;
+                case WEEKS:
+                    return (end.epochDay - epochDay) / 7;
+                case MONTHS:
+                    return monthsUntil(end);
+                case YEARS:
+                    return monthsUntil(end) / 12;
+                case DECADES:
+                    return monthsUntil(end) / 120;
+                case CENTURIES:
+                    return monthsUntil(end) / 1200;
+                case MILLENNIA:
+                    return monthsUntil(end) / 12000;
+                case ERAS:
+                    return 0;
+                default:
+                    throw new UnsupportedTemporalTypeException("Unsupported unit: " + unit);
+            }
+        }
+        return unit.between(this, end);
+    }
+
+    private long monthsUntil(UmmalquraDate end) {
+        long packed1 = getProlepticMonth() * 32L + dayOfMonth;
+        long packed2 = end.getProlepticMonth() * 32L + end.dayOfMonth;
+        return (packed2 - packed1) / 32;
+    }
+
+    @Override
+    public ChronoPeriod until(ChronoLocalDate endDateExclusive) {
+        UmmalquraDate end = chronology.date(endDateExclusive);
+        long totalMonths = end.getProlepticMonth() - getProlepticMonth();
+        int days = end.dayOfMonth - dayOfMonth;
+        if (totalMonths > 0 && days < 0) {
+            totalMonths--;
+            days = end.epochDay - plusMonths(totalMonths).epochDay;
+        } else if (totalMonths < 0 && days > 0) {
+            totalMonths++;
+            days -= end.lengthOfMonth();
+        }
+        return chronology.period(Math.toIntExact(totalMonths / 12), (int) (totalMonths % 12), days);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ChronoLocalDateTime<UmmalquraDate> atTime(LocalTime localTime) {
+        return (ChronoLocalDateTime<UmmalquraDate>) ChronoLocalDate.super.atTime(localTime);
+    }
+
+    //-----------------------------------------------------------------------
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof UmmalquraDate)) {
+            return false;
+        }
+        UmmalquraDate other = (UmmalquraDate) obj;
+        return epochDay == other.epochDay && chronology.equals(other.chronology);
+    }
+
+    @Override
+    public int hashCode() {
+        return chronology.hashCode() ^ epochDay;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buf = new StringBuilder(30);
+        buf.append(chronology.getId()).append(' ').append(getEra()).append(' ')
+                .append(prolepticYear)
+                .append(monthOfYear < 10 ? "-0" : "-").append(monthOfYear)
+                .append(dayOfMonth < 10 ? "-0" : "-").append(dayOfMonth);
+        return buf.toString();
+    }
+}
@@ -26,11 +26,26 @@ package com.github.msarhan.ummalqura.calendar;
 
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author msarhan.
@@ -104,4 +119,417 @@ public class HijrahChronologyTest {
         assertTrue("1442-02-30 H should convert to: 2020-10-17 G",
                 dateInfo[0] == 2020 && dateInfo[1] == Calendar.OCTOBER && dateInfo[2] == 17);
     }
+
+    @Test
+    public void epochDayToPackedHijri() {
+        // 2015-03-14
+        int packed = HijrahChronology.INSTANCE.epochDayToPackedHijri(16508);
+
+        assertEquals(1436, HijrahChronology.packedYear(packed));
+        assertEquals(UmmalquraCalendar.JUMADA_AWWAL, HijrahChronology.packedMonth(packed));
+        assertEquals(23, HijrahChronology.packedDay(packed));
+    }
+
+    @Test
+    public void hijriToEpochDay() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+
+        assertEquals(16508, chronology.hijriToEpochDay(1436, UmmalquraCalendar.JUMADA_AWWAL, 23));
+        assertEquals(16508, chronology.packedHijriToEpochDay(
+                HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23)));
+    }
+
+    @Test
+    public void packedRoundTrip() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        int previous = 0;
+        for (int epochDay = -25000; epochDay < 40000; epochDay++) {
+            int packed = chronology.epochDayToPackedHijri(epochDay);
+            assertTrue("packed dates should sort chronologically", packed > previous);
+            assertEquals(epochDay, chronology.packedHijriToEpochDay(packed));
+            previous = packed;
+        }
+    }
+
+    @Test
+    public void lookupCoversWholeTable() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        int first = chronology.hijriToEpochDay(1300, UmmalquraCalendar.MUHARRAM, 1);
+        int last = chronology.hijriToEpochDay(1600, UmmalquraCalendar.THUL_HIJJAH, 30);
+        for (int epochDay = first; epochDay <= last; epochDay++) {
+            assertEquals(epochDay, chronology.packedHijriToEpochDay(
+                    chronology.epochDayToPackedHijri(epochDay)));
+        }
+    }
+
+    @Test
+    public void lookupTableSize() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+
+        assertEquals(HijrahChronology.LookupMode.BUCKET, chronology.getLookupMode());
+        assertTrue("bucket index should stay small", chronology.getLookupTableSize() < 16 * 1024);
+    }
+
+    @Test
+    public void lookupModeProperty() {
+        assertEquals(HijrahChronology.LookupMode.BUCKET, HijrahData.parseLookupMode(null));
+        assertEquals(HijrahChronology.LookupMode.DENSE, HijrahData.parseLookupMode("DENSE"));
+        assertEquals(HijrahChronology.LookupMode.BUCKET, HijrahData.parseLookupMode("DENSEE"));
+    }
+
+    @Test
+    public void epochMillisToPackedHijri() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        // 2015-03-13T22:30:00Z
+        long epochMillis = 16507L * 24 * 60 * 60 * 1000 + (22 * 60 + 30) * 60 * 1000;
+
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 22),
+                chronology.epochMillisToPackedHijri(epochMillis, TimeZone.getTimeZone("UTC")));
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23),
+                chronology.epochMillisToPackedHijri(epochMillis, TimeZone.getTimeZone("Asia/Riyadh")));
+        assertEquals(-1, HijrahChronology.toEpochDay(-1, TimeZone.getTimeZone("UTC")));
+    }
+
+    @Test
+    public void epochDayToPackedIsoRange() {
+        assertEquals(HijrahChronology.pack(0, Calendar.JANUARY, 1),
+                HijrahChronology.epochDayToPackedIso(-719528));
+        assertEquals(HijrahChronology.pack(32767, Calendar.DECEMBER, 31),
+                HijrahChronology.epochDayToPackedIso(11248737));
+        for (long epochDay : new long[]{-719529, 11248738, Long.MIN_VALUE, Long.MAX_VALUE}) {
+            try {
+                HijrahChronology.epochDayToPackedIso(epochDay);
+                fail("accepted " + epochDay);
+            } catch (DateTimeException expected) {
+                // out of the years a packed date holds
+            }
+        }
+    }
+
+    @Test
+    public void fromIsoEpochDayOutOfPackedRange() {
+        assertEquals(new GregorianCalendar(70000, Calendar.MARCH, 1).getTime(),
+                HijrahChronology.fromIsoEpochDay(HijrahChronology.toIsoEpochDay(70000, 3, 1)));
+        assertEquals(new GregorianCalendar(-5, Calendar.JULY, 15).getTime(),
+                HijrahChronology.fromIsoEpochDay(HijrahChronology.toIsoEpochDay(-5, 7, 15)));
+        assertEquals(new GregorianCalendar(2015, Calendar.MARCH, 14).getTime(),
+                HijrahChronology.fromIsoEpochDay(16508));
+    }
+
+    @Test
+    public void epochDayToPackedIso() {
+        assertEquals(HijrahChronology.pack(1970, Calendar.JANUARY, 1),
+                HijrahChronology.epochDayToPackedIso(0));
+        assertEquals(HijrahChronology.pack(2015, Calendar.MARCH, 14),
+                HijrahChronology.epochDayToPackedIso(16508));
+        assertEquals(HijrahChronology.pack(1882, Calendar.NOVEMBER, 12),
+                HijrahChronology.epochDayToPackedIso(-31826));
+
+        for (int epochDay = -31826; epochDay < 40000; epochDay++) {
+            int packed = HijrahChronology.epochDayToPackedIso(epochDay);
+            assertEquals(epochDay, HijrahChronology.toIsoEpochDay(HijrahChronology.packedYear(packed),
+                    HijrahChronology.packedMonth(packed) + 1, HijrahChronology.packedDay(packed)));
+        }
+    }
+
+    @Test
+    public void compiledDataMatchesConfiguration() throws Exception {
+        HijrahData expected;
+        try (InputStream is = getClass().getResourceAsStream(HijrahChronology.CONFIG_RESOURCE)) {
+            expected = HijrahData.parse(is);
+        }
+        try (InputStream is = getClass().getResourceAsStream(HijrahChronology.DATA_RESOURCE)) {
+            assertNotNull("compiled calendar data should be generated by the build", is);
+            assertEquals(expected, HijrahData.readFrom(is));
+        }
+        assertEquals("Hijrah-umalqura", expected.id);
+        assertEquals(354, expected.minYearLength);
+        assertEquals(355, expected.maxYearLength);
+    }
+
+    @Test
+    public void preload() {
+        long nanos = HijrahChronology.INSTANCE.preload();
+
+        assertTrue("load time should be measured", nanos > 0);
+        assertEquals("loading should happen once", nanos, HijrahChronology.INSTANCE.preload());
+    }
+
+    /**
+     * Returns the default calendar configuration adjusted so that Ramadan 1445 starts one day
+     * later, as a variant with id "Hijrah-test".
+     */
+    static String testVariant() throws Exception {
+        StringBuilder config = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                HijrahChronologyTest.class.getResourceAsStream(HijrahChronology.CONFIG_RESOURCE),
+                "ISO-8859-1"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("id=")) {
+                    line = "id=Hijrah-test";
+                } else if (line.startsWith("version=")) {
+                    line = "version=1";
+                } else if (line.startsWith("1445=")) {
+                    line = "1445=29 30 30 30 29 30 29 30 29 29 29 30";
+                }
+                config.append(line).append('\n');
+            }
+        }
+        return config.toString();
+    }
+
+    static HijrahChronology loadVariant(String config) throws Exception {
+        return HijrahChronology.load(new ByteArrayInputStream(config.getBytes("ISO-8859-1")));
+    }
+
+    @Test
+    public void loadVariant() throws Exception {
+        HijrahChronology variant = loadVariant(testVariant());
+
+        assertNotSame(HijrahChronology.INSTANCE, variant);
+        assertEquals("Hijrah-test", variant.getId());
+        assertEquals("1", variant.getVersion());
+        assertSame(variant, HijrahChronology.of("Hijrah-test"));
+        assertSame(variant, HijrahChronology.of("Hijrah-test", "1"));
+        assertSame("same id and version should be cached", variant, loadVariant(testVariant()));
+        assertTrue(HijrahChronology.getAvailableIds().contains("Hijrah-test"));
+
+        // Ramadan 1445 starts one day later in the test variant
+        assertEquals(19793, HijrahChronology.INSTANCE.hijriToEpochDay(1445, UmmalquraCalendar.RAMADHAN, 1));
+        assertEquals(19794, variant.hijriToEpochDay(1445, UmmalquraCalendar.RAMADHAN, 1));
+        assertEquals(HijrahChronology.pack(1445, UmmalquraCalendar.SHAABAN, 30),
+                variant.epochDayToPackedHijri(19793));
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectDefaultIdForVariant() throws Exception {
+        loadVariant(testVariant().replace("Hijrah-test", HijrahChronology.DEFAULT_ID));
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectUnknownVariant() {
+        HijrahChronology.of("Hijrah-unknown");
+    }
+
+    @Test
+    public void replaceData() throws Exception {
+        String config = testVariant().replace("Hijrah-test", "Hijrah-swap");
+        HijrahChronology chronology = loadVariant(config);
+        final List<Long> notified = new ArrayList<>();
+        chronology.addDataListener(new HijrahChronology.DataListener() {
+            @Override
+            public void dataChanged(HijrahChronology source, long generation) {
+                notified.add(generation);
+            }
+        });
+
+        assertEquals(0, chronology.getGeneration());
+        assertEquals(19794, chronology.hijriToEpochDay(1445, 8, 1));
+
+        chronology.replaceData(new ByteArrayInputStream(config
+                .replace("version=1", "version=2")
+                .replace("1445=29 30 30 30 29 30 29 30 29 29 29 30",
+                        "1445=29 30 30 30 29 30 29 29 30 29 29 30")
+                .getBytes("ISO-8859-1")));
+
+        assertEquals(1, chronology.getGeneration());
+        assertEquals(Collections.singletonList(1L), notified);
+        assertEquals("2", chronology.getVersion());
+        assertEquals(19793, chronology.hijriToEpochDay(1445, 8, 1));
+        assertSame(chronology, HijrahChronology.of("Hijrah-swap", "2"));
+    }
+
+    @Test
+    public void shouldNotifyEveryListenerWhenOneThrows() throws Exception {
+        String config = testVariant().replace("Hijrah-test", "Hijrah-throwing");
+        HijrahChronology chronology = loadVariant(config);
+        final List<Long> notified = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final int listener = i;
+            chronology.addDataListener(new HijrahChronology.DataListener() {
+                @Override
+                public void dataChanged(HijrahChronology source, long generation) {
+                    if (listener != 1) {
+                        notified.add(generation);
+                    }
+                    if (listener != 2) {
+                        throw new IllegalStateException("listener " + listener);
+                    }
+                }
+            });
+        }
+
+        try {
+            chronology.replaceData(new ByteArrayInputStream(
+                    config.replace("version=1", "version=2").getBytes("ISO-8859-1")));
+            fail("listener failure swallowed");
+        } catch (IllegalStateException ex) {
+            assertEquals("listener 0", ex.getMessage());
+            assertEquals(1, ex.getSuppressed().length);
+            assertEquals("listener 1", ex.getSuppressed()[0].getMessage());
+        }
+        assertEquals(Arrays.asList(1L, 1L), notified);
+        assertEquals(1, chronology.getGeneration());
+        assertEquals("2", chronology.getVersion());
+    }
+
+    @Test
+    public void shouldNotifyConcurrentReplacementsInOrder() throws Exception {
+        final String config = testVariant().replace("Hijrah-test", "Hijrah-order");
+        final HijrahChronology chronology = loadVariant(config);
+        final List<Long> notified = Collections.synchronizedList(new ArrayList<Long>());
+        chronology.addDataListener(new HijrahChronology.DataListener() {
+            @Override
+            public void dataChanged(HijrahChronology source, long generation) {
+                notified.add(generation);
+            }
+        });
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 25; i++) {
+                            chronology.replaceData(new ByteArrayInputStream(config.getBytes("ISO-8859-1")));
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, chronology.getGeneration());
+        assertEquals(100, notified.size());
+        for (int i = 0; i < notified.size(); i++) {
+            assertEquals(i + 1L, (long) notified.get(i));
+        }
+    }
+
+    @Test
+    public void shouldRejectReplacementWithVersionOfOtherChronology() throws Exception {
+        String config = testVariant().replace("Hijrah-test", "Hijrah-taken");
+        HijrahChronology first = loadVariant(config);
+        HijrahChronology second = loadVariant(config.replace("version=1", "version=2"));
+        try {
+            first.replaceData(new ByteArrayInputStream(
+                    config.replace("version=1", "version=2").getBytes("ISO-8859-1")));
+            fail("version 2 registered twice");
+        } catch (DateTimeException expected) {
+            // version 2 belongs to the second chronology
+        }
+        assertEquals("1", first.getVersion());
+        assertEquals(0, first.getGeneration());
+        assertSame(first, HijrahChronology.of("Hijrah-taken", "1"));
+        assertSame(second, HijrahChronology.of("Hijrah-taken", "2"));
+
+        // reloading version 1 makes it the variant of the id again
+        assertSame(first, loadVariant(config));
+        assertSame(first, HijrahChronology.of("Hijrah-taken"));
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectReplacementWithOtherId() throws Exception {
+        HijrahChronology chronology = loadVariant(testVariant());
+        chronology.replaceData(new ByteArrayInputStream(
+                testVariant().replace("Hijrah-test", "Hijrah-other").getBytes("ISO-8859-1")));
+    }
+
+    @Test
+    public void yearTables() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        // 1437=30 29 30 30 29 29 30 29 30 29 29 30
+        assertEquals(0x1 | 0x4 | 0x8 | 0x40 | 0x100 | 0x800, chronology.monthLengths(1437));
+        assertEquals(chronology.hijriToEpochDay(1437, UmmalquraCalendar.MUHARRAM, 1),
+                chronology.firstEpochDayOfYear(1437));
+
+        for (int year = chronology.getMinimumYear(); year <= chronology.getMaximumYear(); year++) {
+            int monthLengths = chronology.monthLengths(year);
+            int total = 0;
+            for (int month = 0; month < 12; month++) {
+                int length = HijrahChronology.packedMonthLength(monthLengths, month);
+                assertEquals(chronology.getMonthLength(year, month + 1), length);
+                assertEquals(length, chronology.lengthOfMonth(year, month));
+                total += length;
+            }
+            assertEquals(total, chronology.lengthOfYear(year));
+            assertEquals(total > 354, chronology.isLeapYear(year));
+            assertEquals(chronology.firstEpochDayOfYear(year) + total,
+                    year < chronology.getMaximumYear() ? chronology.firstEpochDayOfYear(year + 1)
+                            : chronology.hijriToEpochDay(year, UmmalquraCalendar.THUL_HIJJAH, 1)
+                            + HijrahChronology.packedMonthLength(monthLengths, UmmalquraCalendar.THUL_HIJJAH));
+        }
+    }
+
+    @Test
+    public void tryToEpochDay() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        for (int year = chronology.getMinimumYear(); year <= chronology.getMaximumYear(); year++) {
+            for (int month = 0; month < 12; month++) {
+                int length = chronology.lengthOfMonth(year, month);
+                for (int day = 1; day <= length; day++) {
+                    assertEquals(chronology.hijriToEpochDay(year, month, day),
+                            chronology.tryToEpochDay(year, month, day));
+                }
+                assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToEpochDay(year, month, length + 1));
+            }
+        }
+        assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToEpochDay(chronology.getMaximumYear() + 1, 0, 1));
+        assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToEpochDay(1437, 12, 1));
+        assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToEpochDay(1437, 0, 0));
+    }
+
+    @Test
+    public void tryToHijri() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        // 2015-03-14
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23), chronology.tryToHijri(16508));
+        assertEquals(chronology.tryToHijri(16508),
+                chronology.tryToHijri(16507 * 86400000L + 22 * 3600000L, TimeZone.getTimeZone("Asia/Riyadh")));
+        int first = chronology.firstEpochDayOfYear(chronology.getMinimumYear());
+        assertEquals(HijrahChronology.pack(chronology.getMinimumYear(), 0, 1), chronology.tryToHijri(first));
+        assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToHijri(first - 1));
+        assertEquals(HijrahChronology.INVALID_DATE, chronology.tryToHijri(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void isValid() {
+        HijrahChronology chronology = HijrahChronology.INSTANCE;
+        // Ramadan 1437 has 30 days, Shawwal 1437 has 29
+        assertTrue(chronology.isValid(1437, UmmalquraCalendar.RAMADHAN, 30));
+        assertFalse(chronology.isValid(1437, UmmalquraCalendar.SHAWWAL, 30));
+        assertFalse(chronology.isValid(1437, 12, 1));
+        assertFalse(chronology.isValid(1437, -1, 1));
+        assertFalse(chronology.isValid(chronology.getMinimumYear() - 1, 0, 1));
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectYearOutOfTable() {
+        HijrahChronology.INSTANCE.lengthOfYear(HijrahChronology.INSTANCE.getMaximumYear() + 1);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectInvalidMonthLength() throws Exception {
+        loadVariant(testVariant().replace("Hijrah-test", "Hijrah-invalid")
+                .replace("1445=29 30 30 30 29 30 29 30 29 29 29 30", "1445=29 30 30 30 29 30 29 30 28 29 29 31"));
+    }
+
+    @Test
+    public void shouldReportYearOfInvalidMonthLength() throws Exception {
+        String config = testVariant()
+                .replace("1445=29 30 30 30 29 30 29 30 29 29 29 30", "1445=29 30 30 30 29 30 29 30 29 29 29 31");
+        try {
+            HijrahData.parse(new ByteArrayInputStream(config.getBytes("ISO-8859-1")));
+            fail("31 day month accepted");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Invalid month length in year: 1445", ex.getMessage());
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * @author msarhan.
+ */
+public class HijrahDataCompilerTest {
+
+    @Test
+    public void shouldAcceptCompiledConfiguration() throws Exception {
+        Properties props = loadConfig();
+
+        HijrahDataCompiler.verify(props, roundTrip(HijrahData.parse(props)), "mismatch");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldDetectSwappedMonths() throws Exception {
+        Properties props = loadConfig();
+        Properties swapped = (Properties) props.clone();
+        // same year length, different month starts
+        swapped.setProperty("1436", "29 30 29 30 29 30 29 30 30 29 30 29");
+        if (swapped.getProperty("1436").equals(props.getProperty("1436"))) {
+            swapped.setProperty("1436", "30 29 30 29 30 29 30 29 29 30 29 30");
+        }
+
+        HijrahDataCompiler.verify(props, roundTrip(HijrahData.parse(swapped)), "mismatch");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldDetectShiftedStart() throws Exception {
+        Properties props = loadConfig();
+        Properties shifted = (Properties) props.clone();
+        shifted.setProperty("iso-start", "1882-11-13");
+
+        HijrahDataCompiler.verify(props, roundTrip(HijrahData.parse(shifted)), "mismatch");
+    }
+
+    private static Properties loadConfig() throws Exception {
+        Properties props = new Properties();
+        try (InputStream is = HijrahChronology.class.getResourceAsStream(HijrahChronology.CONFIG_RESOURCE)) {
+            props.load(is);
+        }
+        return props;
+    }
+
+    private static HijrahData roundTrip(HijrahData data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        data.writeTo(out);
+        return HijrahData.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
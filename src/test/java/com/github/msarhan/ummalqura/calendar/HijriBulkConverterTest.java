@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author msarhan.
+ */
+public class HijriBulkConverterTest {
+
+    private static final int COUNT = 100000;
+
+    private final HijriBulkConverter sequential = new HijriBulkConverter(HijrahChronology.INSTANCE,
+            null, Integer.MAX_VALUE);
+    private final HijriBulkConverter parallel = new HijriBulkConverter(HijrahChronology.INSTANCE,
+            null, 1000);
+
+    @Test
+    public void epochMillisToPackedHijri() {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Riyadh");
+        long[] millis = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            millis[i] = -2000000000000L + i * 40000000L;
+        }
+
+        int[] expected = new int[COUNT];
+        int[] actual = new int[COUNT];
+        sequential.epochMillisToPackedHijri(millis, expected, zone);
+        parallel.epochMillisToPackedHijri(millis, actual, zone);
+
+        assertArrayEquals(expected, actual);
+        assertEquals(HijrahChronology.INSTANCE.epochMillisToPackedHijri(millis[COUNT - 1], zone),
+                actual[COUNT - 1]);
+    }
+
+    @Test
+    public void shouldConvertAgainstOneSnapshot() throws Exception {
+        final String config = HijrahChronologyTest.testVariant().replace("Hijrah-test", "Hijrah-bulk");
+        final HijrahChronology variant = HijrahChronologyTest.loadVariant(config);
+        // replaces the data while the first element is converted
+        TimeZone zone = new SimpleTimeZone(0, "UTC") {
+            private boolean replaced;
+
+            @Override
+            public int getOffset(long date) {
+                if (!replaced) {
+                    replaced = true;
+                    try {
+                        variant.replaceData(new ByteArrayInputStream(config.replace("version=1", "version=2")
+                                .replace("1445=29 30 30 30 29 30 29 30 29 29 29 30",
+                                        "1445=29 30 30 30 29 30 29 29 30 29 29 30")
+                                .getBytes("ISO-8859-1")));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return 0;
+            }
+        };
+        // 2024-03-11 is 30 Sha'ban 1445 in the test variant and 1 Ramadan in the replacement
+        long[] millis = {19793 * 86400000L, 19793 * 86400000L};
+        int[] packed = new int[2];
+        new HijriBulkConverter(variant, null, Integer.MAX_VALUE).epochMillisToPackedHijri(millis, packed, zone);
+
+        int shaaban30 = HijrahChronology.pack(1445, UmmalquraCalendar.SHAABAN, 30);
+        assertArrayEquals(new int[]{shaaban30, shaaban30}, packed);
+        assertEquals(1, variant.getGeneration());
+    }
+
+    @Test
+    public void epochDaysRoundTrip() {
+        int[] epochDays = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            epochDays[i] = -30000 + i;
+        }
+
+        int[] expected = new int[COUNT];
+        int[] actual = new int[COUNT];
+        sequential.epochDaysToPackedHijri(epochDays, expected);
+        parallel.epochDaysToPackedHijri(epochDays, actual);
+        assertArrayEquals(expected, actual);
+
+        parallel.packedHijriToEpochDays(actual, 0, actual, 0, COUNT);
+        assertArrayEquals(epochDays, actual);
+    }
+
+    @Test
+    public void findInvalid() {
+        // Ramadan 1437 has 30 days, Shawwal 1437 has 29
+        int[] years = {1437, 1437, 1437, 1437, 9999};
+        int[] months = {UmmalquraCalendar.RAMADHAN, UmmalquraCalendar.SHAWWAL, 12, 0, 0};
+        int[] days = {30, 30, 1, 0, 1};
+
+        BitSet invalid = sequential.findInvalid(years, months, days);
+        assertEquals("{1, 2, 3, 4}", invalid.toString());
+
+        int[] packed = new int[years.length + 1];
+        for (int i = 0; i < years.length; i++) {
+            packed[i] = HijrahChronology.pack(years[i], months[i], days[i]);
+        }
+        packed[years.length] = -1;
+        assertEquals("{1, 2, 3, 4, 5}", sequential.findInvalid(packed).toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectShortDestination() {
+        parallel.epochDaysToPackedHijri(new int[10], 0, new int[10], 5, 10);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldPropagateOutOfRange() {
+        int[] epochDays = new int[COUNT];
+        epochDays[COUNT - 1] = -100000;
+        parallel.epochDaysToPackedHijri(epochDays, new int[COUNT]);
+    }
+}
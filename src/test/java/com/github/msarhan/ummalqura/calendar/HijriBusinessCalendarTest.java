@@ -0,0 +1,163 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author msarhan.
+ */
+public class HijriBusinessCalendarTest {
+
+    private static final HijrahChronology chronology = HijrahChronology.INSTANCE;
+
+    // 2015-03-12, 1436-05-21, a Thursday
+    private static final int THURSDAY = 16506;
+
+    @Test
+    public void weekends() {
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(Calendar.FRIDAY, Calendar.SATURDAY);
+
+        assertTrue(calendar.isWorkingDay(THURSDAY));
+        assertFalse(calendar.isWorkingDay(THURSDAY + 1));
+        assertFalse(calendar.isWorkingDay(1436, UmmalquraCalendar.JUMADA_AWWAL, 23));
+        assertTrue(calendar.isWorkingDay(THURSDAY + 3));
+        assertTrue(calendar.isWeekend(Calendar.FRIDAY));
+        assertFalse(calendar.isWeekend(Calendar.SUNDAY));
+
+        assertEquals(5, calendar.workingDaysBetween(THURSDAY, THURSDAY + 7));
+        assertEquals(-5, calendar.workingDaysBetween(THURSDAY + 7, THURSDAY));
+        assertEquals(0, calendar.workingDaysBetween(THURSDAY + 1, THURSDAY + 3));
+    }
+
+    @Test
+    public void addWorkingDays() {
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(Calendar.FRIDAY, Calendar.SATURDAY);
+
+        assertEquals(THURSDAY + 3, calendar.addWorkingDays(THURSDAY, 1));
+        assertEquals(THURSDAY + 3, calendar.addWorkingDays(THURSDAY + 1, 1));
+        assertEquals(THURSDAY + 7, calendar.addWorkingDays(THURSDAY, 5));
+        assertEquals(THURSDAY, calendar.addWorkingDays(THURSDAY + 3, -1));
+        assertEquals(THURSDAY, calendar.addWorkingDays(THURSDAY + 2, -1));
+        assertEquals(THURSDAY - 7, calendar.addWorkingDays(THURSDAY, -5));
+        assertEquals(THURSDAY + 1, calendar.addWorkingDays(THURSDAY + 1, 0));
+    }
+
+    @Test
+    public void holidays() {
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(Calendar.FRIDAY, Calendar.SATURDAY);
+        // Eid al-Fitr 1436, 1 to 4 Shawwal
+        int eid = chronology.hijriToEpochDay(1436, UmmalquraCalendar.SHAWWAL, 1);
+        int before = calendar.workingDaysBetween(eid - 30, eid + 30);
+
+        calendar.addHolidays(eid, eid + 1, eid + 2, eid + 3);
+        assertTrue(calendar.isHoliday(eid));
+        assertFalse(calendar.isWorkingDay(eid));
+        int weekdays = 0;
+        for (int i = 0; i < 4; i++) {
+            weekdays += calendar.isWeekend(dayOfWeek(eid + i)) ? 0 : 1;
+        }
+        assertEquals(before - weekdays, calendar.workingDaysBetween(eid - 30, eid + 30));
+        assertEquals(calendar.addWorkingDays(eid + 3, 1), calendar.addWorkingDays(eid - 1, 1));
+
+        calendar.removeHoliday(eid + 1);
+        assertFalse(calendar.isHoliday(eid + 1));
+        assertEquals(!calendar.isWeekend(dayOfWeek(eid + 1)), calendar.isWorkingDay(eid + 1));
+
+        calendar.removeHolidays(eid, eid + 2, eid + 3);
+        assertEquals(before, calendar.workingDaysBetween(eid - 30, eid + 30));
+    }
+
+    @Test
+    public void shouldMatchDayByDayWalk() {
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(Calendar.FRIDAY, Calendar.SATURDAY);
+        int start = chronology.hijriToEpochDay(1437, UmmalquraCalendar.RAMADHAN, 1);
+        calendar.addHolidays(start + 10, start + 11, start + 40, start + 41);
+        calendar.addHoliday(1437, UmmalquraCalendar.THUL_HIJJAH, 10);
+
+        int epochDay = start;
+        for (int n = 1; n <= 200; n++) {
+            do {
+                epochDay++;
+            } while (calendar.isWeekend(dayOfWeek(epochDay)) || calendar.isHoliday(epochDay));
+            assertEquals(epochDay, calendar.addWorkingDays(start, n));
+            assertEquals(start, calendar.addWorkingDays(epochDay, -n + (calendar.isWorkingDay(start) ? 0 : 1)));
+            assertEquals(n, calendar.workingDaysBetween(start + 1, epochDay + 1));
+        }
+    }
+
+    @Test
+    public void shouldFollowDataReplacement() throws Exception {
+        String config = HijrahChronologyTest.testVariant().replace("Hijrah-test", "Hijrah-business");
+        HijrahChronology variant = HijrahChronologyTest.loadVariant(config);
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(variant, Calendar.FRIDAY, Calendar.SATURDAY);
+        int maxYear = variant.getMaximumYear();
+        int lastDay = variant.firstEpochDayOfYear(maxYear) + variant.lengthOfYear(maxYear) - 1;
+        calendar.isWorkingDay(lastDay);
+        calendar.addHoliday(THURSDAY);
+
+        // drop the last year
+        variant.replaceData(new ByteArrayInputStream(config.replace("version=1", "version=2")
+                .replaceAll("(?m)^" + maxYear + "=.*$", "").getBytes("ISO-8859-1")));
+
+        assertTrue(calendar.isHoliday(THURSDAY));
+        assertEquals(4, calendar.workingDaysBetween(THURSDAY, THURSDAY + 7));
+        try {
+            calendar.isWorkingDay(lastDay);
+            fail("day of the dropped year accepted");
+        } catch (DateTimeException expected) {
+            // the range follows the data
+        }
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectDayOutOfRange() {
+        new HijriBusinessCalendar(Calendar.FRIDAY).isWorkingDay(Integer.MAX_VALUE);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectResultOutOfRange() {
+        HijriBusinessCalendar calendar = new HijriBusinessCalendar(Calendar.FRIDAY);
+        calendar.addWorkingDays(chronology.firstEpochDayOfYear(chronology.getMinimumYear()) + 3, -10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidWeekendDay() {
+        new HijriBusinessCalendar(0);
+    }
+
+    private static int dayOfWeek(int epochDay) {
+        return HijriDate.ofEpochDay(epochDay).getDayOfWeek();
+    }
+}
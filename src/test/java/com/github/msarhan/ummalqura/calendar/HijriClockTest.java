@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author msarhan.
+ */
+public class HijriClockTest {
+
+    private static final TimeZone RIYADH = TimeZone.getTimeZone("Asia/Riyadh");
+
+    // 2015-03-14, 1436-05-23
+    private static final int EPOCH_DAY = 16508;
+
+    @Test
+    public void today() {
+        MutableTimeSource time = new MutableTimeSource(EPOCH_DAY * 86400000L);
+        HijriClock clock = new HijriClock(RIYADH, time);
+
+        assertEquals(HijriDate.of(1436, UmmalquraCalendar.JUMADA_AWWAL, 23), clock.today());
+        assertEquals(EPOCH_DAY, clock.todayEpochDay());
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23), clock.todayPacked());
+        assertEquals("1436-05-23", clock.todayText());
+        // midnight in Riyadh is 21:00 UTC
+        assertEquals((EPOCH_DAY + 1) * 86400000L - 3 * 3600000L, clock.nextMidnightMillis());
+    }
+
+    @Test
+    public void rollsOverAtLocalMidnight() {
+        long midnight = (EPOCH_DAY + 1) * 86400000L - 3 * 3600000L;
+        MutableTimeSource time = new MutableTimeSource(midnight - 1);
+        HijriClock clock = new HijriClock(RIYADH, time);
+        HijriDate today = clock.today();
+
+        assertEquals(EPOCH_DAY, today.toEpochDay());
+        assertSame(today, clock.today());
+
+        time.millis = midnight;
+        assertEquals(EPOCH_DAY + 1, clock.todayEpochDay());
+        assertEquals("1436-05-24", clock.todayText());
+
+        // clocks may be set back
+        time.millis = midnight - 1;
+        assertEquals(EPOCH_DAY, clock.todayEpochDay());
+    }
+
+    @Test
+    public void formatIsCachedForTheDay() {
+        MutableTimeSource time = new MutableTimeSource(EPOCH_DAY * 86400000L);
+        HijriClock clock = new HijriClock(RIYADH, time);
+        HijriDateFormatter formatter = HijriDateFormatter.ofPattern("d MMMM y", Locale.ENGLISH);
+
+        String text = clock.format(formatter);
+        assertEquals("23 Jumada al-Ula 1436", text);
+        assertSame(text, clock.format(formatter));
+
+        time.millis += 86400000L;
+        assertEquals("24 Jumada al-Ula 1436", clock.format(formatter));
+    }
+
+    @Test
+    public void rollsOverAcrossDaylightSavingTime() {
+        TimeZone zone = TimeZone.getTimeZone("America/Sao_Paulo");
+        // Sao Paulo skipped midnight on 2014-10-19, the day started at 01:00 -02:00, 03:00 UTC
+        long start = 16362 * 86400000L + 3 * 3600000L;
+        MutableTimeSource time = new MutableTimeSource(start - 3600000L);
+        HijriClock clock = new HijriClock(zone, time);
+
+        assertEquals(16361, clock.todayEpochDay());
+        assertEquals(start, clock.nextMidnightMillis());
+        time.millis = start;
+        assertEquals(16362, clock.todayEpochDay());
+    }
+
+    @Test
+    public void sharedClocks() {
+        assertSame(HijriClock.of(RIYADH), HijriClock.of(TimeZone.getTimeZone("Asia/Riyadh")));
+        assertEquals(HijriDate.ofEpochMillis(System.currentTimeMillis(), RIYADH), HijriClock.of(RIYADH).today());
+    }
+
+    @Test
+    public void sharedClocksKeepTheRulesOfTheirZone() {
+        // a custom zone reusing the ID of Riyadh, 12 hours ahead of it
+        TimeZone custom = new SimpleTimeZone(15 * 3600000, "Asia/Riyadh");
+        HijriClock clock = HijriClock.of(custom);
+
+        assertNotSame(HijriClock.of(RIYADH), clock);
+        assertEquals(15 * 3600000, clock.getZone().getRawOffset());
+        assertEquals(3 * 3600000, HijriClock.of(RIYADH).getZone().getRawOffset());
+        // the custom zone is not cached in place of the system one
+        assertNotSame(clock, HijriClock.of(custom));
+        assertSame(HijriClock.of(RIYADH), HijriClock.of((TimeZone) RIYADH.clone()));
+    }
+
+    private static final class MutableTimeSource implements HijriClock.TimeSource {
+
+        volatile long millis;
+
+        MutableTimeSource(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return millis;
+        }
+    }
+}
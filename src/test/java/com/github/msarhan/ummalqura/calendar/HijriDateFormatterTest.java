@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author msarhan.
+ */
+public class HijriDateFormatterTest {
+
+    private static final Locale en = new Locale("en");
+    private static final Locale ar = new Locale("ar");
+
+    // 2015-03-14, 1436-05-23
+    private static final int EPOCH_DAY = 16508;
+
+    @Test
+    public void formatEpochDay() {
+        assertEquals("1436-05-23", HijriDateFormatter.ofPattern("yyyy-MM-dd", en).format(EPOCH_DAY));
+        assertEquals("1436-5-23", HijriDateFormatter.ofPattern("y-M-d", en).format(EPOCH_DAY));
+        assertEquals("36", HijriDateFormatter.ofPattern("yy", en).format(EPOCH_DAY));
+        assertEquals("Jum-I", HijriDateFormatter.ofPattern("MMM", en).format(EPOCH_DAY));
+        assertEquals("Jumada al-Ula", HijriDateFormatter.ofPattern("MMMM", en).format(EPOCH_DAY));
+        assertEquals("جمادى 1", HijriDateFormatter.ofPattern("MMM", ar).format(EPOCH_DAY));
+        assertEquals("جمادى الأولى", HijriDateFormatter.ofPattern("MMMM", ar).format(EPOCH_DAY));
+        assertEquals("Sat", HijriDateFormatter.ofPattern("E", en).format(EPOCH_DAY));
+        assertEquals("Saturday", HijriDateFormatter.ofPattern("EEEE", en).format(EPOCH_DAY));
+        assertEquals("السبت", HijriDateFormatter.ofPattern("EEEE", ar).format(EPOCH_DAY));
+        assertEquals("00:00:00.000", HijriDateFormatter.ofPattern("HH:mm:ss.SSS", en).format(EPOCH_DAY));
+    }
+
+    @Test
+    public void formatLiterals() {
+        HijriDateFormatter formatter = HijriDateFormatter.ofPattern("'Day' d 'of' MMMM, ''yy", en);
+
+        assertEquals("Day 23 of Jumada al-Ula, '36", formatter.format(EPOCH_DAY));
+    }
+
+    @Test
+    public void formatEpochMillis() {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Riyadh");
+        // 2015-03-13T22:30:05.007Z is 2015-03-14T01:30:05.007 in Riyadh
+        long millis = (EPOCH_DAY - 1) * 86400000L + 22 * 3600000L + 30 * 60000L + 5007L;
+
+        assertEquals("1436/05/23 01:30:05.007 AM",
+                HijriDateFormatter.ofPattern("yyyy/MM/dd HH:mm:ss.SSS a", en).format(millis, zone));
+        assertEquals("1436/05/22 10:30 PM",
+                HijriDateFormatter.ofPattern("yyyy/MM/dd hh:mm a", en)
+                        .format(millis, TimeZone.getTimeZone("GMT")));
+    }
+
+    @Test
+    public void shouldMatchSimpleDateFormat() {
+        // English only, the digits SimpleDateFormat uses for Arabic depend on the JDK version
+        String pattern = "EEEE d MMMM yyyy, D, HH:mm:ss";
+        TimeZone zone = TimeZone.getTimeZone("Asia/Riyadh");
+        HijriDateFormatter formatter = HijriDateFormatter.ofPattern(pattern, en);
+        UmmalquraCalendar cal = new UmmalquraCalendar(zone, en);
+        SimpleDateFormat format = new SimpleDateFormat(pattern, en);
+        format.setCalendar(cal);
+        for (long millis = 1400000000000L; millis < 1500000000000L; millis += 86400000L * 7 + 3601001L) {
+            cal.setTimeInMillis(millis);
+            assertEquals(format.format(cal.getTime()), formatter.format(millis, zone));
+        }
+    }
+
+    @Test
+    public void formatArabicNames() {
+        HijriDateFormatter formatter = HijriDateFormatter.ofPattern("EEEE d MMMM yyyy, D, HH:mm:ss", ar);
+        TimeZone zone = TimeZone.getTimeZone("Asia/Riyadh");
+
+        assertEquals("الثلاثاء 14 رجب 1435, 191, 19:53:20", formatter.format(1400000000000L, zone));
+        assertEquals("الخميس 24 شعبان 1436, 230, 08:20:00", formatter.format(1434000000000L, zone));
+    }
+
+    @Test
+    public void formatToAppendable() throws Exception {
+        StringBuilder sb = new StringBuilder("date: ");
+        HijriDateFormatter.ofPattern("d/M/yyyy", en).formatTo(EPOCH_DAY, (Appendable) sb);
+
+        assertEquals("date: 23/5/1436", sb.toString());
+    }
+
+    @Test
+    public void formatWithDigitStyle() {
+        HijriDateFormatter formatter = HijriDateFormatter.ofPattern("d MMMM yyyy", ar);
+
+        assertEquals("23 جمادى الأولى 1436", formatter.format(EPOCH_DAY));
+        assertEquals("٢٣ جمادى الأولى ١٤٣٦", formatter
+                .withDigitStyle(HijriDateFormatter.DigitStyle.ARABIC_INDIC).format(EPOCH_DAY));
+        assertEquals("۲۳ جمادى الأولى ۱۴۳۶", formatter
+                .withDigitStyle(HijriDateFormatter.DigitStyle.EXTENDED_ARABIC_INDIC).format(EPOCH_DAY));
+        assertEquals("٠١:٠٥", HijriDateFormatter.ofPattern("HH:mm", ar)
+                .withDigitStyle(HijriDateFormatter.DigitStyle.ARABIC_INDIC)
+                .format(EPOCH_DAY * 86400000L + 65 * 60000L, TimeZone.getTimeZone("GMT")));
+        assertEquals(HijriDateFormatter.DigitStyle.LATIN, formatter.getDigitStyle());
+    }
+
+    @Test
+    public void digitStylesRoundTripThroughParser() {
+        HijriDateParser parser = HijriDateParser.ofPattern("dd/MM/yyyy");
+        for (HijriDateFormatter.DigitStyle style : HijriDateFormatter.DigitStyle.values()) {
+            HijriDateFormatter formatter = HijriDateFormatter.ofPattern("dd/MM/yyyy", ar).withDigitStyle(style);
+            for (int epochDay = EPOCH_DAY; epochDay < EPOCH_DAY + 400; epochDay += 7) {
+                assertEquals(epochDay, parser.parseEpochDay(formatter.format(epochDay)));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownPatternLetter() {
+        HijriDateFormatter.ofPattern("yyyy-MM-dd Q", en);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnterminatedQuote() {
+        HijriDateFormatter.ofPattern("yyyy 'year", en);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author msarhan.
+ */
+public class HijriDateParserTest {
+
+    // 2015-03-14, 1436-05-23
+    private static final int EPOCH_DAY = 16508;
+    private static final int PACKED = HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23);
+
+    @Test
+    public void parseText() {
+        HijriDateParser parser = HijriDateParser.ofPattern("yyyy/MM/dd");
+
+        assertEquals(EPOCH_DAY, parser.parseEpochDay("1436/05/23"));
+        assertEquals(PACKED, parser.parsePacked("1436/05/23"));
+        assertEquals(EPOCH_DAY, HijriDateParser.ofPattern("d-M-y").parseEpochDay("23-5-1436"));
+        assertEquals(EPOCH_DAY, HijriDateParser.ofPattern("yyyyMMdd").parseEpochDay("14360523"));
+    }
+
+    @Test
+    public void parseArabicText() {
+        HijriDateParser parser = HijriDateParser.ofPattern("dd-MM-yyyy 'هـ'");
+
+        assertEquals(EPOCH_DAY, parser.parseEpochDay("23-05-1436 هـ"));
+        assertEquals(EPOCH_DAY, parser.parseEpochDay("٢٣-٠٥-١٤٣٦ هـ"));
+        assertEquals(EPOCH_DAY, parser.parseEpochDay("۲۳-۰۵-۱۴۳۶ هـ"));
+    }
+
+    @Test
+    public void parseBytes() {
+        HijriDateParser parser = HijriDateParser.ofPattern("dd-MM-yyyy 'هـ'");
+        byte[] bytes = "|٢٣-05-١٤٣٦ هـ|".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(EPOCH_DAY, parser.parseEpochDay(bytes, 1, bytes.length - 2));
+        assertEquals(PACKED, parser.parsePacked(bytes, 1, bytes.length - 2));
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay(bytes, 0, bytes.length - 1));
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 2);
+        assertEquals(EPOCH_DAY, parser.parseEpochDay(buffer));
+        assertEquals(1, buffer.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).position(1).limit(bytes.length - 1);
+        assertEquals(PACKED, parser.parsePacked(direct));
+    }
+
+    @Test
+    public void shouldValidateMonthLengths() {
+        HijriDateParser parser = HijriDateParser.ofPattern("yyyy/MM/dd");
+
+        // Ramadan 1437 has 30 days, Shawwal 1437 has 29
+        assertEquals(HijrahChronology.INSTANCE.hijriToEpochDay(1437, UmmalquraCalendar.RAMADHAN, 30),
+                parser.parseEpochDay("1437/09/30"));
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/10/30"));
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/13/01"));
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/01/00"));
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("9999/01/01"));
+        assertEquals(HijriDateParser.INVALID, parser.parsePacked("1437/10/30".getBytes(StandardCharsets.UTF_8), 0, 10));
+    }
+
+    @Test
+    public void shouldReportErrorIndex() {
+        HijriDateParser parser = HijriDateParser.ofPattern("yyyy/MM/dd");
+
+        ParsePosition pos = new ParsePosition(0);
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/1x/01", pos));
+        assertEquals(6, pos.getErrorIndex());
+        assertEquals(0, pos.getIndex());
+
+        pos = new ParsePosition(0);
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437-10-01", pos));
+        assertEquals(4, pos.getErrorIndex());
+
+        pos = new ParsePosition(0);
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/10/30", pos));
+        assertEquals(8, pos.getErrorIndex());
+
+        pos = new ParsePosition(0);
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay("1437/13/01", pos));
+        assertEquals(5, pos.getErrorIndex());
+    }
+
+    @Test
+    public void parseWithPosition() {
+        HijriDateParser parser = HijriDateParser.ofPattern("yyyy/MM/dd");
+        String text = "1436/05/23,1436/05/24";
+
+        ParsePosition pos = new ParsePosition(0);
+        assertEquals(EPOCH_DAY, parser.parseEpochDay(text, pos));
+        assertEquals(10, pos.getIndex());
+        pos.setIndex(11);
+        assertEquals(EPOCH_DAY + 1, parser.parseEpochDay(text, pos));
+        assertEquals(text.length(), pos.getIndex());
+
+        assertEquals(HijriDateParser.INVALID, parser.parseEpochDay(text));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPatternWithoutDay() {
+        HijriDateParser.ofPattern("yyyy/MM");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTextPattern() {
+        HijriDateParser.ofPattern("yyyy/MMM/dd");
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author msarhan.
+ */
+public class HijriDateTest {
+
+    @Test
+    public void ofEpochDay() {
+        // 2015-03-14
+        HijriDate date = HijriDate.ofEpochDay(16508);
+
+        assertEquals(1436, date.getYear());
+        assertEquals(UmmalquraCalendar.JUMADA_AWWAL, date.getMonth());
+        assertEquals(23, date.getDayOfMonth());
+        assertEquals(Calendar.SATURDAY, date.getDayOfWeek());
+        assertEquals("1436-05-23", date.toString());
+        assertEquals(date, HijriDate.of(1436, UmmalquraCalendar.JUMADA_AWWAL, 23));
+    }
+
+    @Test
+    public void shouldFollowDataReplacement() throws Exception {
+        // 2024-03-11, 1 Ramadan 1445
+        HijriDate date = HijriDate.ofEpochDay(19793);
+        assertEquals("1445-09-01", date.toString());
+
+        String config = HijrahChronologyTest.testVariant()
+                .replace("id=Hijrah-test", "id=" + HijrahChronology.DEFAULT_ID);
+        HijrahChronology.INSTANCE.replaceData(new ByteArrayInputStream(config.getBytes("ISO-8859-1")));
+        try {
+            // Sha'ban 1445 has 30 days in the corrected table
+            assertEquals("1445-08-30", date.toString());
+            assertEquals(30, date.lengthOfMonth());
+            assertEquals(date, HijriDate.of(1445, UmmalquraCalendar.SHAABAN, 30));
+        } finally {
+            try (InputStream is = HijriDateTest.class.getResourceAsStream(HijrahChronology.CONFIG_RESOURCE)) {
+                HijrahChronology.INSTANCE.replaceData(is);
+            }
+        }
+        assertEquals("1445-09-01", date.toString());
+    }
+
+    @Test
+    public void ofEpochMillis() {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Riyadh");
+        // 2015-03-13T22:00:00Z is already 2015-03-14 in Riyadh
+        assertEquals(HijriDate.ofEpochDay(16508), HijriDate.ofEpochMillis(16507 * 86400000L + 22 * 3600000L, zone));
+    }
+
+    @Test
+    public void key() {
+        HijriDate date = HijriDate.of(1436, UmmalquraCalendar.JUMADA_AWWAL, 23);
+
+        assertEquals(14360523, date.toKey());
+        assertEquals(date, HijriDate.ofKey(14360523));
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.JUMADA_AWWAL, 23), date.toPacked());
+    }
+
+    @Test
+    public void keysSortChronologically() {
+        TreeMap<Integer, HijriDate> byKey = new TreeMap<>();
+        HijriDate date = HijriDate.of(1435, UmmalquraCalendar.THUL_HIJJAH, 1);
+        for (int i = 0; i < 400; i++) {
+            byKey.put(date.plusDays(i).toKey(), date.plusDays(i));
+        }
+
+        HijriDate previous = null;
+        for (HijriDate value : byKey.values()) {
+            if (previous != null) {
+                assertEquals(1, value.toEpochDay() - previous.toEpochDay());
+                assertTrue(previous.compareTo(value) < 0);
+            }
+            previous = value;
+        }
+    }
+
+    @Test
+    public void plusMonthsClampsDayOfMonth() {
+        // Ramadan 1437 has 30 days, Shawwal 1437 and Ramadan 1436 have 29
+        HijriDate date = HijriDate.of(1437, UmmalquraCalendar.RAMADHAN, 30);
+
+        assertEquals(HijriDate.of(1437, UmmalquraCalendar.SHAWWAL, 29), date.plusMonths(1));
+        assertEquals(HijriDate.of(1438, UmmalquraCalendar.MUHARRAM, 30), date.plusMonths(4));
+        assertEquals(HijriDate.of(1436, UmmalquraCalendar.THUL_HIJJAH, 30), date.plusMonths(-9));
+        assertEquals(HijriDate.of(1436, UmmalquraCalendar.RAMADHAN, 29), date.plusYears(-1));
+        assertEquals(30, date.lengthOfMonth());
+        assertEquals(29, date.plusMonths(1).lengthOfMonth());
+    }
+
+    @Test
+    public void plusDays() {
+        HijriDate date = HijriDate.of(1436, UmmalquraCalendar.THUL_HIJJAH, 30);
+
+        assertEquals(HijriDate.of(1437, UmmalquraCalendar.MUHARRAM, 1), date.plusDays(1));
+        assertEquals(date, date.plusDays(1).plusDays(-1));
+        assertEquals(date.lengthOfYear(), date.getDayOfYear());
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectInvalidKey() {
+        HijriDate.ofKey(14371030);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author msarhan.
+ */
+public class HijriHybridCalendarTest {
+
+    private final HijrahChronology chronology = HijrahChronology.INSTANCE;
+    private final HijriHybridCalendar calendar = new HijriHybridCalendar();
+
+    @Test
+    public void usesChronologyDataInsideTable() {
+        // 2015-03-14
+        assertEquals(chronology.epochDayToPackedHijri(16508), calendar.epochDayToPackedHijri(16508));
+        assertEquals(16508, calendar.hijriToEpochDay(1436, UmmalquraCalendar.JUMADA_AWWAL, 23));
+        assertEquals(HijriHybridCalendar.Engine.UMMALQURA, calendar.getEngine(1436));
+        assertEquals(HijriHybridCalendar.Engine.UMMALQURA, calendar.getEngineOfEpochDay(16508));
+    }
+
+    @Test
+    public void usesTabularCalendarOutsideTable() {
+        int minYear = chronology.getMinimumYear();
+        int maxYear = chronology.getMaximumYear();
+        int minEpochDay = chronology.firstEpochDayOfYear(minYear);
+
+        assertEquals(HijriHybridCalendar.Engine.TABULAR, calendar.getEngine(minYear - 1));
+        assertEquals(HijriHybridCalendar.Engine.TABULAR, calendar.getEngine(maxYear + 1));
+        assertEquals(HijriHybridCalendar.Engine.TABULAR, calendar.getEngineOfEpochDay(minEpochDay - 1));
+        assertEquals(HijriHybridCalendar.Engine.UMMALQURA, calendar.getEngineOfEpochDay(minEpochDay));
+        assertEquals(HijrahChronology.pack(minYear - 1, UmmalquraCalendar.THUL_HIJJAH,
+                calendar.lengthOfMonth(minYear - 1, UmmalquraCalendar.THUL_HIJJAH)),
+                calendar.epochDayToPackedHijri(minEpochDay - 1));
+        assertEquals(HijrahChronology.pack(1, UmmalquraCalendar.MUHARRAM, 1),
+                calendar.epochDayToPackedHijri(calendar.firstEpochDayOfYear(1)));
+    }
+
+    @Test
+    public void continuousAcrossSeams() {
+        int from = calendar.firstEpochDayOfYear(chronology.getMinimumYear() - 3);
+        int to = calendar.firstEpochDayOfYear(chronology.getMaximumYear() + 3);
+        int previous = calendar.epochDayToPackedHijri(from - 1);
+        for (int epochDay = from; epochDay < to; epochDay++) {
+            int packed = calendar.epochDayToPackedHijri(epochDay);
+            assertEquals(next(previous), packed);
+            assertEquals(epochDay, calendar.hijriToEpochDay(HijrahChronology.packedYear(packed),
+                    HijrahChronology.packedMonth(packed), HijrahChronology.packedDay(packed)));
+            previous = packed;
+        }
+    }
+
+    @Test
+    public void lengthsOfYears() {
+        for (int year = 1; year < chronology.getMaximumYear() + 100; year++) {
+            assertEquals(calendar.firstEpochDayOfYear(year + 1) - calendar.firstEpochDayOfYear(year),
+                    calendar.lengthOfYear(year));
+        }
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectYearOutOfTabularRange() {
+        calendar.hijriToEpochDay(0, UmmalquraCalendar.MUHARRAM, 1);
+    }
+
+    private int next(int packed) {
+        int year = HijrahChronology.packedYear(packed);
+        int month = HijrahChronology.packedMonth(packed);
+        int day = HijrahChronology.packedDay(packed);
+        if (day < calendar.lengthOfMonth(year, month)) {
+            return HijrahChronology.pack(year, month, day + 1);
+        }
+        return month < 11 ? HijrahChronology.pack(year, month + 1, 1) : HijrahChronology.pack(year + 1, 0, 1);
+    }
+}
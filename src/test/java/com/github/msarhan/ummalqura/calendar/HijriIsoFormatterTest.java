@@ -0,0 +1,108 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author msarhan.
+ */
+public class HijriIsoFormatterTest {
+
+    private static final TimeZone RIYADH = TimeZone.getTimeZone("Asia/Riyadh");
+
+    // 2015-03-14, 1436-05-23
+    private static final int EPOCH_DAY = 16508;
+
+    private final HijriIsoFormatter formatter = new HijriIsoFormatter();
+
+    @Test
+    public void formatToArray() {
+        byte[] dest = new byte[40];
+        // 2015-03-13T22:30:05.007Z is 2015-03-14T01:30:05.007 in Riyadh
+        long millis = (EPOCH_DAY - 1) * 86400000L + 22 * 3600000L + 30 * 60000L + 5007L;
+
+        assertEquals(12, formatter.formatDate(EPOCH_DAY, dest, 2));
+        assertEquals("1436-05-23", new String(dest, 2, 10, StandardCharsets.US_ASCII));
+
+        assertEquals(HijriIsoFormatter.DATE_LENGTH, formatter.formatDate(millis, RIYADH, dest, 0));
+        assertEquals("1436-05-23", new String(dest, 0, 10, StandardCharsets.US_ASCII));
+
+        assertEquals(25, formatter.formatDateTime(millis, RIYADH, dest, 2));
+        assertEquals("1436-05-23T01:30:05.007", new String(dest, 2, 23, StandardCharsets.US_ASCII));
+
+        formatter.formatDateTime(millis, TimeZone.getTimeZone("GMT"), dest, 0);
+        assertEquals("1436-05-22T22:30:05.007", new String(dest, 0, 23, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void formatToBuffer() {
+        long millis = EPOCH_DAY * 86400000L + 13 * 3600000L + 45 * 60000L + 30250L;
+        TimeZone gmt = TimeZone.getTimeZone("GMT");
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            buffer.put((byte) '[');
+            formatter.formatDate(millis, gmt, buffer);
+            buffer.put((byte) ' ');
+            formatter.formatDateTime(millis, gmt, buffer);
+            buffer.flip();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            assertEquals("[1436-05-23 1436-05-23T13:45:30.250", new String(bytes, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void shouldMatchHijriDateFormatter() {
+        HijriDateFormatter text = HijriDateFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        byte[] dest = new byte[HijriIsoFormatter.DATE_TIME_LENGTH];
+        for (long millis = -1000000000000L; millis < 2000000000000L; millis += 86400000L * 13 + 3601001L) {
+            formatter.formatDateTime(millis, RIYADH, dest, 0);
+            assertEquals(text.format(millis, RIYADH), new String(dest, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void shouldRejectShortBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(HijriIsoFormatter.DATE_TIME_LENGTH - 1);
+        try {
+            formatter.formatDateTime(0L, RIYADH, buffer);
+        } finally {
+            assertEquals(0, buffer.position());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectShortArray() {
+        formatter.formatDate(EPOCH_DAY, new byte[12], 3);
+    }
+}
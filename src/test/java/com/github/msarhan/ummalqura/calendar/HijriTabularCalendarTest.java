@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author msarhan.
+ */
+public class HijriTabularCalendarTest {
+
+    private final HijriTabularCalendar calendar =
+            new HijriTabularCalendar(HijriTabularCalendar.LeapPattern.TYPE_II);
+
+    @Test
+    public void knownDates() {
+        // 1 Muharram 1 AH is Julian 622-07-16, 1 Muharram 1436 is 2014-10-25
+        assertEquals(-492148, calendar.firstEpochDayOfYear(1));
+        assertEquals(16368, calendar.firstEpochDayOfYear(1436));
+        assertEquals(HijrahChronology.pack(1436, UmmalquraCalendar.MUHARRAM, 1),
+                calendar.epochDayToPackedHijri(16368));
+        // 1426 and 1425 are the 16th and 15th years of a cycle
+        assertTrue(calendar.isLeapYear(1426));
+        assertFalse(calendar.isLeapYear(1425));
+        assertTrue(new HijriTabularCalendar(HijriTabularCalendar.LeapPattern.TYPE_I).isLeapYear(1425));
+        assertEquals(30, calendar.lengthOfMonth(1436, UmmalquraCalendar.MUHARRAM));
+        assertEquals(29, calendar.lengthOfMonth(1436, UmmalquraCalendar.SAFAR));
+    }
+
+    @Test
+    public void allDatesRoundTrip() {
+        for (HijriTabularCalendar.LeapPattern pattern : HijriTabularCalendar.LeapPattern.values()) {
+            HijriTabularCalendar tabular = new HijriTabularCalendar(pattern);
+            int epochDay = tabular.firstEpochDayOfYear(HijriTabularCalendar.MIN_YEAR);
+            for (int year = HijriTabularCalendar.MIN_YEAR; year <= HijriTabularCalendar.MAX_YEAR; year++) {
+                assertEquals(epochDay, tabular.firstEpochDayOfYear(year));
+                int lengthOfYear = 0;
+                for (int month = 0; month < 12; month++) {
+                    int length = tabular.lengthOfMonth(year, month);
+                    for (int day = 1; day <= length; day++, epochDay++) {
+                        assertEquals(HijrahChronology.pack(year, month, day), tabular.epochDayToPackedHijri(epochDay));
+                        assertEquals(epochDay, tabular.hijriToEpochDay(year, month, day));
+                    }
+                    lengthOfYear += length;
+                }
+                assertEquals(lengthOfYear, tabular.lengthOfYear(year));
+            }
+        }
+    }
+
+    @Test
+    public void elevenLeapYearsPerCycle() {
+        for (HijriTabularCalendar.LeapPattern pattern : HijriTabularCalendar.LeapPattern.values()) {
+            HijriTabularCalendar tabular = new HijriTabularCalendar(pattern);
+            assertEquals(30 * 354 + 11, tabular.firstEpochDayOfYear(31) - tabular.firstEpochDayOfYear(1));
+        }
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectYearZero() {
+        calendar.firstEpochDayOfYear(0);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectDayBeforeEpoch() {
+        calendar.epochDayToPackedHijri(calendar.firstEpochDayOfYear(1) - 1);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectInvalidDay() {
+        calendar.hijriToEpochDay(1436, UmmalquraCalendar.SAFAR, 30);
+    }
+}
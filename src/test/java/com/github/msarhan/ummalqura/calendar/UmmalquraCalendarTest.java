@@ -26,11 +26,19 @@ package com.github.msarhan.ummalqura.calendar;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Field;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -231,4 +239,330 @@ public class UmmalquraCalendarTest {
                 dateFormat.format(date));
     }
 
+    @Test
+    public void testChronologyVariant() throws Exception {
+        HijrahChronology variant = HijrahChronologyTest.loadVariant(HijrahChronologyTest.testVariant());
+        UmmalquraCalendar cal = new UmmalquraCalendar(variant, TimeZone.getDefault(), Locale.ENGLISH);
+        cal.setTime(dateFormat.parse("2024-3-11"));
+
+        assertEquals(variant, cal.getChronology());
+        assertEquals(UmmalquraCalendar.SHAABAN, cal.get(Calendar.MONTH));
+        assertEquals(30, cal.get(Calendar.DAY_OF_MONTH));
+        assertEquals(30, cal.lengthOfMonth());
+
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+        cal.set(Calendar.MONTH, UmmalquraCalendar.RAMADHAN);
+        assertEquals("2024-3-12", dateFormat.format(cal.getTime()));
+    }
+
+    @Test
+    public void testSetHijriDate() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1436, UmmalquraCalendar.JUMADA_AWWAL, 23, 12,
+                19, 44);
+
+        cal.setHijriDate(1437, UmmalquraCalendar.RAMADHAN, 30);
+
+        assertEquals(1437, cal.get(Calendar.YEAR));
+        assertEquals(UmmalquraCalendar.RAMADHAN, cal.get(Calendar.MONTH));
+        assertEquals(30, cal.get(Calendar.DAY_OF_MONTH));
+        assertEquals(12, cal.get(Calendar.HOUR_OF_DAY));
+        assertEquals(19, cal.get(Calendar.MINUTE));
+        assertEquals("2016-7-5", dateFormat.format(cal.getTime()));
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectInvalidHijriDate() {
+        // Shawwal 1437 has 29 days
+        new UmmalquraCalendar(1437, UmmalquraCalendar.SHAWWAL, 30);
+    }
+
+    @Test
+    public void testComputeFieldsUsesCalendarZone() {
+        TimeZone riyadh = TimeZone.getTimeZone("Asia/Riyadh");
+        TimeZone losAngeles = TimeZone.getTimeZone("America/Los_Angeles");
+        // 2015-03-14T22:00:00Z is 2015-03-15 in Riyadh and 2015-03-14 in Los Angeles
+        long time = 16508 * 86400000L + 22 * 3600000L;
+
+        UmmalquraCalendar cal = new UmmalquraCalendar(riyadh, Locale.ENGLISH);
+        cal.setTimeInMillis(time);
+        assertEquals(24, cal.get(Calendar.DAY_OF_MONTH));
+
+        cal.setTimeZone(losAngeles);
+        cal.setTimeInMillis(time);
+        assertEquals(23, cal.get(Calendar.DAY_OF_MONTH));
+        assertEquals(UmmalquraCalendar.JUMADA_AWWAL, cal.get(Calendar.MONTH));
+        assertEquals(1436, cal.get(Calendar.YEAR));
+    }
+
+    @Test
+    public void testComputeFieldsAcrossDays() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(TimeZone.getTimeZone("UTC"), Locale.ENGLISH);
+        long time = 16508 * 86400000L;
+
+        cal.setTimeInMillis(time + 1000);
+        cal.setTimeInMillis(time + 2000);
+        assertEquals(23, cal.get(Calendar.DAY_OF_MONTH));
+
+        cal.setTimeInMillis(time + 86400000L);
+        assertEquals(24, cal.get(Calendar.DAY_OF_MONTH));
+
+        cal.setTimeInMillis(time - 1);
+        assertEquals(22, cal.get(Calendar.DAY_OF_MONTH));
+    }
+
+    @Test
+    public void testAddMonthAndYear() {
+        // Ramadan 1437 has 30 days, Shawwal 1437 and Ramadan 1436 have 29
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 30, 12, 19, 44);
+
+        cal.add(Calendar.MONTH, 1);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.SHAWWAL, 29);
+        assertEquals(12, cal.get(Calendar.HOUR_OF_DAY));
+
+        cal.add(Calendar.MONTH, -13);
+        assertHijriDate(cal, 1436, UmmalquraCalendar.RAMADHAN, 29);
+
+        cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 30);
+        cal.add(Calendar.YEAR, -1);
+        assertHijriDate(cal, 1436, UmmalquraCalendar.RAMADHAN, 29);
+        assertEquals("2015-7-16", dateFormat.format(cal.getTime()));
+    }
+
+    @Test
+    public void testAddDays() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 1);
+
+        cal.add(Calendar.DAY_OF_MONTH, 28);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.RAMADHAN, 29);
+        cal.add(Calendar.DAY_OF_MONTH, 2);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.SHAWWAL, 1);
+        cal.add(Calendar.DAY_OF_YEAR, -1);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.RAMADHAN, 30);
+        assertEquals("2016-7-5", dateFormat.format(cal.getTime()));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        // the value computed for the releases before the chronology field was added
+        assertEquals(-5973047504984482418L,
+                ObjectStreamClass.lookup(UmmalquraCalendar.class).getSerialVersionUID());
+
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 30);
+        UmmalquraCalendar copy = roundTrip(cal);
+        assertHijriDate(copy, 1437, UmmalquraCalendar.RAMADHAN, 30);
+        assertEquals(cal.getTimeInMillis(), copy.getTimeInMillis());
+        assertTrue(copy.getChronology() == HijrahChronology.INSTANCE);
+
+        // a stream without a chronology, as written by earlier releases
+        Field chronology = UmmalquraCalendar.class.getDeclaredField("chronology");
+        chronology.setAccessible(true);
+        chronology.set(cal, null);
+        copy = roundTrip(cal);
+        assertTrue(chronology.get(copy) == HijrahChronology.INSTANCE);
+        copy.add(Calendar.DAY_OF_MONTH, 1);
+        assertHijriDate(copy, 1437, UmmalquraCalendar.SHAWWAL, 1);
+    }
+
+    private static UmmalquraCalendar roundTrip(UmmalquraCalendar cal) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(cal);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (UmmalquraCalendar) in.readObject();
+        }
+    }
+
+    @Test
+    public void testAddDaysAcrossDaylightSaving() {
+        int[] amounts = {1, -1, 7, -7, 29, 400};
+        for (String id : new String[]{"Europe/Berlin", "America/Sao_Paulo", "Australia/Lord_Howe"}) {
+            TimeZone zone = TimeZone.getTimeZone(id);
+            // every half hour from July 2015 to July 2016, including the daylight saving gaps and overlaps
+            for (long millis = 1435708800000L; millis < 1467331200000L; millis += 1800000L) {
+                for (int amount : amounts) {
+                    UmmalquraCalendar cal = new UmmalquraCalendar(zone, Locale.ENGLISH);
+                    cal.setTimeInMillis(millis);
+                    GregorianCalendar expected = new GregorianCalendar(zone);
+                    expected.setTimeInMillis(millis);
+
+                    cal.add(Calendar.DAY_OF_MONTH, amount);
+                    expected.add(Calendar.DAY_OF_MONTH, amount);
+                    assertEquals(id + " " + millis + " " + amount,
+                            expected.getTimeInMillis(), cal.getTimeInMillis());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoll() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 30);
+
+        cal.roll(Calendar.DAY_OF_MONTH, true);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.RAMADHAN, 1);
+        cal.roll(Calendar.DAY_OF_MONTH, -1);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.RAMADHAN, 30);
+
+        cal.roll(Calendar.MONTH, 4);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.MUHARRAM, 30);
+        cal.roll(Calendar.MONTH, false);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.THUL_HIJJAH, 30);
+
+        cal.roll(Calendar.DAY_OF_YEAR, 1);
+        assertHijriDate(cal, 1437, UmmalquraCalendar.MUHARRAM, 1);
+
+        cal.roll(Calendar.YEAR, 2);
+        assertHijriDate(cal, 1439, UmmalquraCalendar.MUHARRAM, 1);
+    }
+
+    @Test
+    public void testDayOfYear() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.RAMADHAN, 30);
+
+        assertEquals(266, cal.get(Calendar.DAY_OF_YEAR));
+        assertEquals(5, cal.get(Calendar.DAY_OF_WEEK_IN_MONTH));
+        assertEquals(30, cal.getActualMaximum(Calendar.DAY_OF_MONTH));
+        assertEquals(354, cal.getActualMaximum(Calendar.DAY_OF_YEAR));
+        assertEquals(29, cal.getLeastMaximum(Calendar.DAY_OF_MONTH));
+        assertEquals(354, cal.getLeastMaximum(Calendar.DAY_OF_YEAR));
+
+        cal.add(Calendar.DAY_OF_MONTH, 1);
+        assertEquals(29, cal.getActualMaximum(Calendar.DAY_OF_MONTH));
+        assertEquals(267, cal.get(Calendar.DAY_OF_YEAR));
+    }
+
+    @Test
+    public void testSetWeekFields() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1445, UmmalquraCalendar.RAMADHAN, 10);
+        cal.setFirstDayOfWeek(Calendar.SUNDAY);
+        cal.setMinimalDaysInFirstWeek(1);
+        int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
+
+        cal.set(Calendar.WEEK_OF_YEAR, 3);
+        assertEquals(3, cal.get(Calendar.WEEK_OF_YEAR));
+        assertEquals(1445, cal.get(Calendar.YEAR));
+        assertEquals(dayOfWeek, cal.get(Calendar.DAY_OF_WEEK));
+
+        for (int week = 1; week <= cal.getActualMaximum(Calendar.WEEK_OF_YEAR); week++) {
+            cal.set(Calendar.WEEK_OF_YEAR, week);
+            assertEquals(week, cal.get(Calendar.WEEK_OF_YEAR));
+            assertEquals(dayOfWeek, cal.get(Calendar.DAY_OF_WEEK));
+        }
+
+        cal.setHijriDate(1445, UmmalquraCalendar.RAMADHAN, 10);
+        cal.set(Calendar.DAY_OF_WEEK_IN_MONTH, 4);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 24);
+        assertEquals(4, cal.get(Calendar.DAY_OF_WEEK_IN_MONTH));
+
+        cal.set(Calendar.WEEK_OF_MONTH, 2);
+        assertEquals(2, cal.get(Calendar.WEEK_OF_MONTH));
+        assertEquals(UmmalquraCalendar.RAMADHAN, cal.get(Calendar.MONTH));
+        assertEquals(dayOfWeek, cal.get(Calendar.DAY_OF_WEEK));
+
+        cal.add(Calendar.WEEK_OF_YEAR, 2);
+        assertEquals(4, cal.get(Calendar.WEEK_OF_MONTH));
+    }
+
+    @Test
+    public void testRollWeekFields() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1445, UmmalquraCalendar.RAMADHAN, 10);
+        cal.setFirstDayOfWeek(Calendar.SUNDAY);
+        cal.setMinimalDaysInFirstWeek(1);
+        int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
+
+        cal.roll(Calendar.WEEK_OF_YEAR, 1);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 17);
+
+        // Ramadan 1445 has 30 days, the 10th falls on the same day of week as the 3rd, 17th and 24th
+        cal.setHijriDate(1445, UmmalquraCalendar.RAMADHAN, 10);
+        cal.roll(Calendar.DAY_OF_WEEK_IN_MONTH, -2);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 24);
+        cal.roll(Calendar.DAY_OF_WEEK_IN_MONTH, 1);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 3);
+
+        // 1445 has 354 days, day 246 falls on the same day of week as days 1, 8, ... 351
+        cal.setHijriDate(1445, UmmalquraCalendar.RAMADHAN, 10);
+        int count = 0;
+        do {
+            cal.roll(Calendar.WEEK_OF_YEAR, true);
+            assertEquals(1445, cal.get(Calendar.YEAR));
+            assertEquals(dayOfWeek, cal.get(Calendar.DAY_OF_WEEK));
+            count++;
+        } while (cal.get(Calendar.DAY_OF_YEAR) != 246);
+        assertEquals(51, count);
+
+        cal.setHijriDate(1445, UmmalquraCalendar.RAMADHAN, 10);
+        int weekOfMonth = cal.get(Calendar.WEEK_OF_MONTH);
+        cal.roll(Calendar.WEEK_OF_MONTH, 1);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 17);
+        assertEquals(weekOfMonth + 1, cal.get(Calendar.WEEK_OF_MONTH));
+        // The last week of the month ends before its day of week, the day is moved to the 30th
+        cal.roll(Calendar.WEEK_OF_MONTH, 2);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 30);
+        assertEquals(cal.getActualMaximum(Calendar.WEEK_OF_MONTH), cal.get(Calendar.WEEK_OF_MONTH));
+        // The 30th is a Tuesday, as is the 2nd
+        cal.roll(Calendar.WEEK_OF_MONTH, 1);
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 2);
+        assertEquals(1, cal.get(Calendar.WEEK_OF_MONTH));
+
+        cal.setHijriDate(1445, UmmalquraCalendar.RAMADHAN, 10);
+        int weekOfYear = cal.get(Calendar.WEEK_OF_YEAR);
+        for (int i = 1; i <= 7; i++) {
+            cal.roll(Calendar.DAY_OF_WEEK, 1);
+            assertEquals(weekOfYear, cal.get(Calendar.WEEK_OF_YEAR));
+            assertEquals((dayOfWeek - 1 + i) % 7 + 1, cal.get(Calendar.DAY_OF_WEEK));
+        }
+        assertHijriDate(cal, 1445, UmmalquraCalendar.RAMADHAN, 10);
+    }
+
+    @Test
+    public void testActualMinimum() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1445, UmmalquraCalendar.RAMADHAN, 10);
+        cal.setFirstDayOfWeek(Calendar.SUNDAY);
+        cal.setMinimalDaysInFirstWeek(1);
+        HijrahChronology chronology = cal.getChronology();
+
+        assertEquals(chronology.getMinimumYear(), cal.getActualMinimum(Calendar.YEAR));
+        assertEquals(chronology.getMaximumYear(), cal.getActualMaximum(Calendar.YEAR));
+        assertEquals(1, cal.getActualMinimum(Calendar.DAY_OF_MONTH));
+        assertEquals(1, cal.getActualMinimum(Calendar.WEEK_OF_MONTH));
+        cal.setMinimalDaysInFirstWeek(7);
+        // 1 Ramadan 1445 is a Monday, the days before the first full week are in week 0
+        assertEquals(0, cal.getActualMinimum(Calendar.WEEK_OF_MONTH));
+    }
+
+    @Test
+    public void testWeekOfYear() {
+        UmmalquraCalendar cal = new UmmalquraCalendar(1437, UmmalquraCalendar.MUHARRAM, 1);
+        int newYearDay = cal.get(Calendar.DAY_OF_WEEK);
+
+        // The year starts on the first day of week
+        cal.setFirstDayOfWeek(newYearDay);
+        cal.setMinimalDaysInFirstWeek(7);
+        assertEquals(1, cal.get(Calendar.WEEK_OF_YEAR));
+        assertEquals(1, cal.get(Calendar.WEEK_OF_MONTH));
+        cal.add(Calendar.DAY_OF_MONTH, 7);
+        assertEquals(2, cal.get(Calendar.WEEK_OF_YEAR));
+        assertEquals(2, cal.get(Calendar.WEEK_OF_MONTH));
+        assertEquals(51, cal.getActualMaximum(Calendar.WEEK_OF_YEAR));
+
+        // The year starts on the last day of week, a complete first week is required
+        cal.setHijriDate(1437, UmmalquraCalendar.MUHARRAM, 1);
+        cal.setFirstDayOfWeek(newYearDay % 7 + 1);
+        UmmalquraCalendar lastDayOf1436 = (UmmalquraCalendar) cal.clone();
+        lastDayOf1436.add(Calendar.DAY_OF_MONTH, -1);
+        assertEquals(lastDayOf1436.getActualMaximum(Calendar.WEEK_OF_YEAR),
+                cal.get(Calendar.WEEK_OF_YEAR));
+        assertEquals(0, cal.get(Calendar.WEEK_OF_MONTH));
+        cal.add(Calendar.DAY_OF_MONTH, 1);
+        assertEquals(1, cal.get(Calendar.WEEK_OF_YEAR));
+        assertEquals(50, cal.getLeastMaximum(Calendar.WEEK_OF_YEAR));
+    }
+
+    private static void assertHijriDate(Calendar cal, int year, int month, int dayOfMonth) {
+        assertEquals(year + "-" + (month + 1) + "-" + dayOfMonth, cal.get(Calendar.YEAR) + "-"
+                + (cal.get(Calendar.MONTH) + 1) + "-" + cal.get(Calendar.DAY_OF_MONTH));
+    }
+
 }
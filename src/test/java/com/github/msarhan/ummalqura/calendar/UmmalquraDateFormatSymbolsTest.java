@@ -3,7 +3,9 @@ package com.github.msarhan.ummalqura.calendar;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Calendar;
 import java.util.Locale;
+import java.util.Map;
 
 /**
  * @author Mouaffak A. Sarhan
@@ -42,4 +44,30 @@ public class UmmalquraDateFormatSymbolsTest {
         );
     }
 
+    @Test
+    public void cachedInstancesAreShared() {
+        UmmalquraDateFormatSymbols symbols = UmmalquraDateFormatSymbols.getInstance(Locale.ENGLISH);
+        long hits = UmmalquraSymbolsCache.getHitCount();
+
+        Assert.assertSame(symbols, UmmalquraDateFormatSymbols.getInstance(Locale.ENGLISH));
+        Assert.assertEquals(hits + 1, UmmalquraSymbolsCache.getHitCount());
+        Assert.assertTrue(UmmalquraSymbolsCache.getSize() <= UmmalquraSymbolsCache.getMaximumSize());
+    }
+
+    @Test
+    public void monthNames() {
+        UmmalquraDateFormatSymbols symbols = UmmalquraDateFormatSymbols.getInstance(Locale.ENGLISH);
+        Map<String, Integer> all = symbols.getMonthNames(Calendar.ALL_STYLES);
+
+        Assert.assertEquals(Integer.valueOf(UmmalquraCalendar.RAMADHAN), all.get("Ramadhan"));
+        Assert.assertEquals(Integer.valueOf(UmmalquraCalendar.SHAWWAL), all.get("Shw"));
+        Assert.assertEquals(12, symbols.getMonthNames(Calendar.SHORT).size());
+        Assert.assertNull(symbols.getMonthNames(Calendar.NARROW_FORMAT));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void monthNamesAreUnmodifiable() {
+        UmmalquraDateFormatSymbols.getInstance(Locale.ENGLISH).getMonthNames(Calendar.LONG).clear();
+    }
+
 }
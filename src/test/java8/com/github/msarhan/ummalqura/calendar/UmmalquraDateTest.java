@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Mouaffak A. Sarhan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.github.msarhan.ummalqura.calendar;
+
+import org.junit.Test;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.chrono.ChronoPeriod;
+import java.time.chrono.HijrahEra;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author msarhan.
+ */
+public class UmmalquraDateTest {
+
+    @Test
+    public void fromLocalDate() {
+        UmmalquraDate date = UmmalquraDate.from(LocalDate.of(2015, 3, 14));
+
+        assertEquals(1436, date.getYear());
+        assertEquals(5, date.getMonthValue());
+        assertEquals(23, date.getDayOfMonth());
+        assertEquals(HijrahEra.AH, date.getEra());
+        assertEquals("Hijrah-umalqura AH 1436-05-23", date.toString());
+    }
+
+    @Test
+    public void toLocalDate() {
+        UmmalquraDate date = UmmalquraChronology.INSTANCE.date(1419, 12, 14);
+
+        assertEquals(LocalDate.of(1999, 4, 1), date.toLocalDate());
+        assertEquals(LocalDate.of(1999, 4, 1), LocalDate.from(date));
+        assertEquals(DayOfWeek.THURSDAY.getValue(), date.get(ChronoField.DAY_OF_WEEK));
+    }
+
+    @Test
+    public void roundTripWholeTable() {
+        UmmalquraChronology chronology = UmmalquraChronology.INSTANCE;
+        HijrahChronology hijrah = chronology.getHijrahChronology();
+        long first = hijrah.hijriToEpochDay(hijrah.getMinimumYear(), 0, 1);
+        long last = hijrah.hijriToEpochDay(hijrah.getMaximumYear(), 11, 1);
+
+        for (long epochDay = first; epochDay <= last; epochDay += 7) {
+            UmmalquraDate date = chronology.dateEpochDay(epochDay);
+            assertEquals(epochDay, date.toEpochDay());
+            assertEquals(date, chronology.date(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date, chronology.dateYearDay(date.getYear(), date.getDayOfYear()));
+        }
+    }
+
+    @Test
+    public void plusMonthsClampsDayOfMonth() {
+        // Ramadan 1437 has 30 days, Shawwal 1437 and Ramadan 1436 have 29
+        UmmalquraDate date = UmmalquraDate.of(1437, 9, 30);
+
+        assertEquals(UmmalquraDate.of(1437, 10, 29), date.plusMonths(1));
+        assertEquals(UmmalquraDate.of(1438, 1, 30), date.plusMonths(4));
+        assertEquals(UmmalquraDate.of(1436, 9, 29), date.plusYears(-1));
+        assertEquals(UmmalquraDate.of(1437, 10, 29), date.plus(1, ChronoUnit.MONTHS));
+    }
+
+    @Test
+    public void until() {
+        UmmalquraDate start = UmmalquraDate.of(1437, 9, 30);
+        UmmalquraDate end = UmmalquraDate.of(1438, 10, 29);
+
+        assertEquals(end.toEpochDay() - start.toEpochDay(), start.until(end, ChronoUnit.DAYS));
+        assertEquals(12, start.until(end, ChronoUnit.MONTHS));
+        assertEquals(1, start.until(end, ChronoUnit.YEARS));
+
+        ChronoPeriod period = start.until(end);
+        assertEquals(1, period.get(ChronoUnit.YEARS));
+        assertEquals(0, period.get(ChronoUnit.MONTHS));
+        assertEquals(29, period.get(ChronoUnit.DAYS));
+        assertEquals(end, start.plus(period));
+    }
+
+    @Test
+    public void with() {
+        UmmalquraDate date = UmmalquraDate.of(1437, 9, 15);
+
+        assertEquals(UmmalquraDate.of(1437, 9, 30), date.with(TemporalAdjusters.lastDayOfMonth()));
+        assertEquals(UmmalquraDate.of(1437, 1, 1), date.with(TemporalAdjusters.firstDayOfYear()));
+        assertEquals(UmmalquraDate.of(1440, 9, 15), date.with(ChronoField.YEAR, 1440));
+        assertEquals(30, date.range(ChronoField.DAY_OF_MONTH).getMaximum());
+        assertEquals(date.lengthOfYear(), date.range(ChronoField.DAY_OF_YEAR).getMaximum());
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectInvalidDayOfMonth() {
+        UmmalquraDate.of(1437, 10, 30);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectOutOfRangeEpochDay() {
+        UmmalquraDate.from(LocalDate.of(2200, 1, 1));
+    }
+
+    @Test
+    public void variantChronology() throws Exception {
+        UmmalquraChronology chronology = UmmalquraChronology.of(
+                HijrahChronologyTest.loadVariant(HijrahChronologyTest.testVariant()));
+
+        assertSame(UmmalquraChronology.INSTANCE, UmmalquraChronology.of(HijrahChronology.INSTANCE));
+        assertEquals("Hijrah-test", chronology.getId());
+        assertNotEquals(UmmalquraChronology.INSTANCE, chronology);
+        assertEquals(19794, chronology.date(1445, 9, 1).toEpochDay());
+        assertEquals(19793, UmmalquraChronology.INSTANCE.date(1445, 9, 1).toEpochDay());
+    }
+}